@@ -0,0 +1,183 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch class that solves many puzzle files (or the puzzles of an archive,
+ * see PuzzleArchive) in one run, sharing a pool of threads (one puzzle per
+ * thread at a time) and printing one line per puzzle:
+ *   <file> <FOUND|NONE|TIMEOUT|ERROR> <milliseconds> <path or message>
+ * or, when counting paths:
+ *   <file> <COUNTED|TIMEOUT|ERROR> <milliseconds> <count or message>
+**/
+public class Batch implements Runnable {
+    /* puzzle files to solve, or names of the puzzles of the archive */
+    protected List<String> files;
+    /* archive holding the puzzles (null if they are separate files) */
+    protected PuzzleArchive archive;
+    /* settings used to build the engine of each puzzle */
+    protected Options options;
+    /* number of puzzles solved so far */
+    protected AtomicInteger solved;
+    
+    /**
+     * Constructor that collects the puzzle files matching the given
+     * directory or glob (e.g. 'samples' or 'samples/input0*.txt'), or opens
+     * the given archive.
+    **/
+    public Batch(String pattern, Options options) throws IOException {
+        this.options = options;
+        if (PuzzleArchive.isArchive(pattern)) {
+            archive = new PuzzleArchive(pattern);
+            files = new ArrayList<String>(archive.size());
+            for (int id = 0; id < archive.size(); id++)
+                files.add(archive.getName(id));
+        } else {
+            files = listFiles(pattern);
+        }
+        solved = new AtomicInteger();
+    }
+    
+    /**
+     * listFiles()
+     *
+     * Description:
+     *   Lists the regular files in a directory, or the files matching a glob
+     *   in its parent directory, sorted by name.
+     *
+     * Inputs:
+     *   pattern - directory or glob
+     *
+     * Return Value:
+     *   List - paths of the files found
+    **/
+    protected static List<String> listFiles(String pattern) throws IOException {
+        Path path = Paths.get(pattern);
+        Path dir = path.getParent();
+        String glob = path.getFileName().toString();
+        List<String> list = new ArrayList<String>();
+        
+        if (Files.isDirectory(path)) {
+            dir = path;
+            glob = "*";
+        } else if (dir == null) {
+            dir = Paths.get(".");
+        }
+        
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(dir, glob)) {
+            for (Path file : stream)
+                if (Files.isRegularFile(file))
+                    list.add(file.toString());
+        }
+        Collections.sort(list);
+        return list;
+    }
+    
+    /**
+     * run() (from Runnable)
+     *
+     * Description:
+     *   Solves every puzzle on a pool of 'numThreads' threads, printing each
+     *   result as soon as it is known, and a summary on standard error.
+    **/
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(options.numThreads);
+        for (int id = 0; id < files.size(); id++) {
+            int puzzle = id;
+            pool.execute(() -> print(solve(puzzle)));
+        }
+        
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            System.err.println("Batch Interrupted");
+        }
+        System.out.flush();
+        System.err.println(
+            "Solved " + solved.get() + " of " + files.size() + " puzzles in " +
+            (System.currentTimeMillis() - startTime) + " ms"
+        );
+        if (options.results != null)
+            System.err.println(options.results);
+        try {
+            if (archive != null)
+                archive.close();
+        } catch (IOException e) {
+            System.err.println("Archive Close Error");
+        }
+    }
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Reads and solves a single puzzle on the calling thread.
+     *
+     * Inputs:
+     *   id - index of the puzzle in 'files'
+     *
+     * Return Value:
+     *   String - result line of the puzzle
+    **/
+    protected String solve(int id) {
+        long startTime = System.currentTimeMillis();
+        String file = files.get(id), status, detail = "";
+        try {
+            Puzzle puzzle = (archive != null)?
+                archive.get(id) : Puzzle.read(file);
+            Solver board = options.newSolver(puzzle, 1);
+            if (options.count) {
+                long count = (board.isSolvable())? board.countPaths() : 0;
+                status = (board.isTimedOut())? "TIMEOUT" : "COUNTED";
+                detail = String.valueOf(count);
+                if (count > 0)
+                    solved.incrementAndGet();
+            } else if (board.isSolvable() && board.solve()) {
+                status = "FOUND";
+                detail = board.pathToString().replace('\n', ' ').trim();
+                solved.incrementAndGet();
+            } else {
+                status = (board.isTimedOut())? "TIMEOUT" : "NONE";
+                Precheck precheck = board.getPrecheck();
+                if (precheck != null && precheck.getFailedTest() != null)
+                    detail = precheck.toString();
+            }
+        } catch (Exception e) {
+            status = "ERROR";
+            detail = String.valueOf(e.getMessage());
+        }
+        return file + "\t" + status + "\t" +
+            (System.currentTimeMillis() - startTime) + "\t" + detail;
+    }
+    
+    /**
+     * print()
+     *
+     * Description:
+     *   Prints a result line without interleaving it with other threads.
+    **/
+    protected void print(String line) {
+        synchronized (System.out) {
+            System.out.println(line);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,261 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark class that times the hot paths of the GameBoard engine on a set
+ * of puzzle files plus generated boards of growing size and block density,
+ * and prints one line per board and benchmark:
+ *   <board> <benchmark> <threads> <ns/op> <error> <ops>
+ * Each benchmark runs a few warmup iterations first so the JIT has compiled
+ * it, then reports the mean and standard deviation of the measured ones.
+**/
+public class Benchmark implements Runnable {
+    /* number of iterations run (and ignored) before measuring */
+    protected static final int WARMUP_ITERATIONS = 3;
+    /* number of measured iterations */
+    protected static final int ITERATIONS = 5;
+    /* shortest time (ms) spent calling a benchmark in each iteration */
+    protected static final long ITERATION_MS = 100;
+    /* calls made between clock reads by the small benchmarks */
+    protected static final int BATCH = 256;
+    /* time limit (ms) of every search when none was given */
+    protected static final long SEARCH_LIMIT = 5000;
+    /* sizes and block densities (percent) of the generated boards */
+    protected static final int MIN_SIZE = 4, MAX_SIZE = 7;
+    protected static final int[] DENSITIES = {0, 10, 20};
+    /* seed of the generated boards, so every run times the same boards */
+    protected static final long SEED = 258;
+    /* puzzles to time */
+    protected List<Puzzle> puzzles;
+    /* settings used to build every board */
+    protected Options options;
+    /* sum of all results, printed so no benchmark can be optimized out */
+    protected long sink;
+    
+    /**
+     * Bench class defines a single benchmark: a call to time and the setup
+     * it needs before every call, which is not timed.
+    **/
+    protected abstract static class Bench {
+        /* board searched by the call (searches only) */
+        protected GameBoard board;
+        
+        public void setup() {}
+        public abstract long call();
+        public boolean isTimedOut()
+        {return board != null && board.isTimedOut();}
+    }
+    
+    /**
+     * Constructor that collects the puzzle files matching the given
+     * directory or glob and generates the other boards.
+    **/
+    public Benchmark(String pattern, Options options) throws IOException {
+        this.options = options;
+        puzzles = new ArrayList<Puzzle>();
+        for (String file : Batch.listFiles(pattern))
+            if (PuzzleArchive.isArchive(file))
+                try (PuzzleArchive archive = new PuzzleArchive(file)) {
+                    for (Puzzle puzzle : archive)
+                        puzzles.add(puzzle);
+                }
+            else
+                puzzles.add(Puzzle.read(file));
+        
+        Random random = new Random(SEED);
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++)
+            for (int density : DENSITIES)
+                puzzles.add(generate(random, size, density));
+        
+        if (options.limit == 0)
+            options.limit = SEARCH_LIMIT;
+    }
+    
+    /**
+     * generate()
+     *
+     * Description:
+     *   Creates a square board with about 'density' percent of its squares
+     *   blocked, starting on a random free square.
+     *
+     * Inputs:
+     *   random - source of the blocks and starting square
+     *   size - number of rows and columns
+     *   density - percent of squares to block
+     *
+     * Return Value:
+     *   Puzzle - generated board
+    **/
+    protected static Puzzle generate(Random random, int size, int density) {
+        boolean[][] grid = new boolean[size][size];
+        int y = random.nextInt(size);
+        int x = random.nextInt(size);
+        
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                grid[i][j] = (i != y || j != x) &&
+                    random.nextInt(100) < density;
+        return new Puzzle(
+            "gen-" + size + "x" + size + "-" + density + "%", grid, y, x
+        );
+    }
+    
+    /**
+     * newBoard()
+     *
+     * Description:
+     *   Builds a configured board of the given puzzle.
+    **/
+    protected GameBoard newBoard(Puzzle puzzle, int workerCount) {
+        GameBoard board =
+            new GameBoard(puzzle.grid, puzzle.y, puzzle.x, workerCount);
+        options.configure(board, puzzle);
+        return board;
+    }
+    
+    /**
+     * walk()
+     *
+     * Description:
+     *   Moves a board halfway through its free squares, always taking the
+     *   first move that passes isGoodMove(), so the pruning checks are timed
+     *   on a board in the middle of a search rather than an empty one.
+    **/
+    protected static void walk(GameBoard board) {
+        boolean moved = true;
+        while (moved && board.pathSize * 2 < board.pathLength) {
+            moved = false;
+            for (GameBoard.MoveAction action : board.actions(null)) {
+                if (!action.forwardCondition())
+                    continue;
+                action.updatePosition();
+                board.forward();
+                if (board.isGoodMove()) {
+                    moved = true;
+                    break;
+                }
+                board.backward();
+                action.undoPosition();
+            }
+        }
+    }
+    
+    /**
+     * run() (from Runnable)
+     *
+     * Description:
+     *   Runs every benchmark on every board. The search benchmarks build a
+     *   new board before each call, and submitTasks() is timed with 1, 2,
+     *   4, ... up to 'numThreads' threads.
+    **/
+    @Override
+    public void run() {
+        System.out.println("board\tbenchmark\tthreads\tns/op\terror\tops");
+        for (Puzzle puzzle : puzzles) {
+            final Puzzle p = puzzle;
+            final GameBoard mid = newBoard(p, 1);
+            mid.prepare();
+            walk(mid);
+            
+            measure(p, "GameBoard(GameBoard)", 1, new Bench() {
+                public long call() {return new GameBoard(mid).pathSize;}
+            });
+            measure(p, "isGoodMove", 1, new Bench() {
+                public long call() {return mid.isGoodMove()? 1 : 0;}
+            });
+            measure(p, "blobCount", 1, new Bench() {
+                public long call() {return mid.blobCount();}
+            });
+            measure(p, "singlePathCount", 1, new Bench() {
+                public long call() {return mid.singlePathCount();}
+            });
+            measure(p, "isDominoTileable", 1, new Bench() {
+                public long call() {return mid.isDominoTileable()? 1 : 0;}
+            });
+            measure(p, "findSolution", 1, new Bench() {
+                public void setup() {
+                    board = newBoard(p, 1);
+                    board.prepare();
+                }
+                public long call() {
+                    return (board.isGoodBoard() && board.findSolution())? 1 : 0;
+                }
+            });
+            for (int t = 1; ; t = Math.min(2*t, options.numThreads)) {
+                final int threads = t;
+                measure(p, "submitTasks", threads, new Bench() {
+                    public void setup() {
+                        board = newBoard(p, threads);
+                        board.prepare();
+                    }
+                    public long call() {return board.submitTasks()? 1 : 0;}
+                });
+                if (t >= options.numThreads)
+                    break;
+            }
+        }
+        System.err.println("Sink: " + sink);
+    }
+    
+    /**
+     * measure()
+     *
+     * Description:
+     *   Times a benchmark and prints its line. Benchmarks without a setup
+     *   are called in batches between clock reads, the others are timed one
+     *   call at a time. A search that reaches its time limit is reported as
+     *   TIMEOUT instead of being timed further.
+     *
+     * Inputs:
+     *   puzzle - board being timed
+     *   name - name of the benchmark
+     *   threads - number of threads the benchmark uses
+     *   bench - benchmark to time
+    **/
+    protected void measure(Puzzle puzzle, String name, int threads,
+            Bench bench) {
+        double[] results = new double[ITERATIONS];
+        long ops = 0;
+        
+        for (int n = -WARMUP_ITERATIONS; n < ITERATIONS; n++) {
+            long elapsed = 0, calls = 0;
+            long end = System.nanoTime() + ITERATION_MS * 1000000;
+            do {
+                bench.setup();
+                int batch = (bench.board == null)? BATCH : 1;
+                long startTime = System.nanoTime();
+                for (int k = 0; k < batch; k++)
+                    sink += bench.call();
+                elapsed += System.nanoTime() - startTime;
+                calls += batch;
+                
+                if (bench.isTimedOut()) {
+                    System.out.println(puzzle.name + "\t" + name + "\t" +
+                        threads + "\tTIMEOUT\t\t" + (ops + calls));
+                    return;
+                }
+            } while (System.nanoTime() - end < 0);
+            
+            if (n >= 0) {
+                results[n] = (double) elapsed / calls;
+                ops += calls;
+            }
+        }
+        
+        double mean = 0, error = 0;
+        for (double result : results)
+            mean += result / ITERATIONS;
+        for (double result : results)
+            error += (result - mean) * (result - mean) / (ITERATIONS - 1);
+        System.out.println(puzzle.name + "\t" + name + "\t" + threads + "\t" +
+            String.format("%.1f\t%.1f\t", mean, Math.sqrt(error)) + ops);
+    }
+}
\ No newline at end of file
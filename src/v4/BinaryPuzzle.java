@@ -0,0 +1,233 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * BinaryPuzzle class that reads and writes puzzles in a compact binary
+ * format, about one bit per square instead of two or more bytes of text.
+ * A record holds, in big-endian order:
+ *   magic    3 bytes  'H' 'P' 'Z'
+ *   version  1 byte   VERSION
+ *   flags    1 byte   HAS_END, HAS_PATH
+ *   rows, columns, start y, start x   4 bytes each
+ *   end y, end x      4 bytes each (if HAS_END)
+ *   blocks   (rows * columns + 7) / 8 bytes, one bit per square in row
+ *            major order, lowest bit first, set if blocked
+ *   path     4 bytes with the number of squares, then 2 bits per move
+ *            after the start (UP, RIGHT, DOWN, LEFT), lowest bits first
+ *            (if HAS_PATH; no squares means the puzzle has no path)
+ *   checksum 4 bytes, CRC-32 of every byte of the record before it
+**/
+class BinaryPuzzle {
+    /* first bytes of every record */
+    protected static final byte[] MAGIC = {'H', 'P', 'Z'};
+    /* version of the format written */
+    protected static final int VERSION = 1;
+    /* flags telling which optional parts the record has */
+    protected static final int HAS_END = 1, HAS_PATH = 2;
+    /* moves of a path, as stored */
+    protected static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+    /* bytes before the grid, without and with the end */
+    protected static final int HEADER = 21, END = 8;
+    
+    /**
+     * isBinary()
+     *
+     * Description:
+     *   Determines whether a file starts with the magic of a record.
+     *
+     * Inputs:
+     *   channel - open file
+    **/
+    public static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        while (magic.hasRemaining())
+            if (channel.read(magic, magic.position()) < 0)
+                return false;
+        return magic.get(0) == MAGIC[0] && magic.get(1) == MAGIC[1] &&
+            magic.get(2) == MAGIC[2];
+    }
+    
+    /**
+     * encode()
+     *
+     * Description:
+     *   Returns the record of a puzzle, with its path if it gives one.
+    **/
+    public static byte[] encode(Puzzle puzzle) {
+        int rows = puzzle.grid.length, columns = puzzle.grid[0].length;
+        int cells = rows * columns;
+        boolean hasEnd = puzzle.endY >= 0, hasPath = puzzle.solution != null;
+        int moves = (hasPath)? Math.max(puzzle.solution.length - 1, 0) : 0;
+        int size = HEADER + ((hasEnd)? END : 0) + (cells + 7) / 8 +
+            ((hasPath)? 4 + (moves + 3) / 4 : 0) + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        
+        buffer.put(MAGIC).put((byte) VERSION)
+            .put((byte) (((hasEnd)? HAS_END : 0) | ((hasPath)? HAS_PATH : 0)))
+            .putInt(rows).putInt(columns).putInt(puzzle.y).putInt(puzzle.x);
+        if (hasEnd)
+            buffer.putInt(puzzle.endY).putInt(puzzle.endX);
+        
+        byte[] blocks = new byte[(cells + 7) / 8];
+        for (int c = 0; c < cells; c++)
+            if (puzzle.grid[c / columns][c % columns])
+                blocks[c >> 3] |= 1 << (c & 7);
+        buffer.put(blocks);
+        
+        if (hasPath) {
+            int[] path = puzzle.solution;
+            byte[] packed = new byte[(moves + 3) / 4];
+            for (int n = 0; n < moves; n++)
+                packed[n >> 2] |= move(path[n], path[n+1], columns) <<
+                    ((n & 3) * 2);
+            buffer.putInt(path.length).put(packed);
+        }
+        
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+    
+    /**
+     * move()
+     *
+     * Description:
+     *   Returns the move from one square to the next one of a path.
+    **/
+    protected static int move(int from, int to, int columns) {
+        if (to == from - columns)
+            return UP;
+        if (to == from + columns)
+            return DOWN;
+        if (to == from + 1 && to % columns != 0)
+            return RIGHT;
+        if (to == from - 1 && from % columns != 0)
+            return LEFT;
+        System.err.println("Path squares are not next to each other");
+        throw new IllegalArgumentException();
+    }
+    
+    /**
+     * decode()
+     *
+     * Description:
+     *   Reads the record starting at the position of a buffer (e.g. a
+     *   mapped file) and leaves the position just past it.
+     *
+     * Inputs:
+     *   name - name of the puzzle
+     *   buffer - bytes of the record
+     *
+     * Return Value:
+     *   Puzzle - puzzle read, with the path the record gives (if any)
+    **/
+    public static Puzzle decode(String name, ByteBuffer buffer)
+            throws IOException {
+        int first = buffer.position();
+        try {
+            for (byte b : MAGIC)
+                if (buffer.get() != b)
+                    throw new IOException(name + ": Not a binary puzzle");
+            int version = buffer.get();
+            if (version != VERSION)
+                throw new IOException(name + ": Unsupported version " +
+                    version);
+            int flags = buffer.get();
+            int rows = buffer.getInt(), columns = buffer.getInt();
+            if (rows <= 0 || columns <= 0 ||
+                    (long) rows * columns > Integer.MAX_VALUE)
+                throw new IOException(name + ": Invalid Board Dimensions");
+            int y = buffer.getInt(), x = buffer.getInt();
+            if (y < 0 || y >= rows || x < 0 || x >= columns)
+                throw new IOException(name + ": Out-Of-Bounds Starting Point");
+            
+            int cells = rows * columns;
+            boolean hasEnd = (flags & HAS_END) != 0;
+            if (buffer.remaining() < ((hasEnd)? END : 0) + (cells + 7) / 8)
+                throw new IOException(name + ": Truncated record");
+            boolean[][] grid = new boolean[rows][columns];
+            Puzzle puzzle = new Puzzle(name, grid, y, x);
+            if (hasEnd) {
+                puzzle.endY = buffer.getInt();
+                puzzle.endX = buffer.getInt();
+            }
+            for (int c = 0; c < cells; c += 8) {
+                int bits = buffer.get();
+                for (int k = 0; k < 8 && c + k < cells; k++)
+                    grid[(c + k) / columns][(c + k) % columns] =
+                        (bits & (1 << k)) != 0;
+            }
+            
+            if ((flags & HAS_PATH) != 0)
+                puzzle.solution = decodePath(name, buffer, puzzle);
+            
+            int end = buffer.position();
+            ByteBuffer record = buffer.duplicate();
+            record.position(first).limit(end);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            if (buffer.getInt() != (int) crc.getValue())
+                throw new IOException(name + ": Checksum mismatch");
+            return puzzle;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(name + ": Truncated record");
+        }
+    }
+    
+    /**
+     * decodePath()
+     *
+     * Description:
+     *   Reads the path of a record, checking that it stays on the board.
+    **/
+    protected static int[] decodePath(String name, ByteBuffer buffer,
+            Puzzle puzzle) throws IOException {
+        int rows = puzzle.grid.length, columns = puzzle.grid[0].length;
+        int length = buffer.getInt();
+        if (length < 0 || length > rows * columns)
+            throw new IOException(name + ": Invalid path length " + length);
+        
+        int[] path = new int[length];
+        int y = puzzle.y, x = puzzle.x, bits = 0;
+        for (int n = 0; n < length; n++) {
+            if (n > 0) {
+                if (((n - 1) & 3) == 0)
+                    bits = buffer.get();
+                switch ((bits >> (((n - 1) & 3) * 2)) & 3) {
+                    case UP: y--; break;
+                    case RIGHT: x++; break;
+                    case DOWN: y++; break;
+                    default: x--; break;
+                }
+                if (y < 0 || y >= rows || x < 0 || x >= columns)
+                    throw new IOException(name + ": Path leaves the board");
+            }
+            path[n] = y * columns + x;
+        }
+        return path;
+    }
+    
+    /**
+     * write()
+     *
+     * Description:
+     *   Writes the record of a puzzle to a file, replacing it.
+    **/
+    public static void write(Puzzle puzzle, String file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(encode(puzzle));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,732 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import mypackages.algorithms.StateSpaceSearch;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.AbstractAction;
+
+/**
+ * BitBoard class that stores the path puzzle board as packed bit masks (one
+ * bit per cell, row-major) so that the search and its pruning work on whole
+ * 64-bit words instead of walking a grid of enum references
+**/
+public class BitBoard
+implements StateSpaceSearch<long[], BitBoard.MoveAction, Boolean>, Solver {
+    /* stores the dimensions of the board */
+    protected Dimension bounds;
+    /* number of cells and number of 64-bit words needed to hold them */
+    protected int cells, words;
+    /* masks of the blocked, used (part of path) and free cells */
+    protected long[] block, used, free;
+    /* masks of the cells that have a left/right neighbor and of the black
+     * squares of the checkerboard (shared between copies, never modified)
+     */
+    protected long[] notFirst, notLast, black;
+    /* scratch masks used by the pruning so it does not allocate per node */
+    protected long[] reach, next, shift, rest;
+    /* keeps track of the current path length and the full path length */
+    protected int pathSize, pathLength;
+    /* keeps track of the current location (linear index) on the board */
+    protected int loc;
+    /* stores the path as an ordered array of linear indices */
+    protected int[] path;
+    /* keeps track of the current state of the algorithm */
+    protected volatile State state;
+    /* shared with any copies so one 'stop' stops them all */
+    protected StopFlag stop;
+    /* told about every path found while counting (may be null) */
+    protected PathListener listener;
+    /* structural checks of the starting board */
+    protected Precheck precheck;
+    /* milliseconds the search may run for (0 for no limit) */
+    protected long timeLimit;
+    /* nodes searched since the deadline was last checked */
+    protected int ticks;
+    /* ordered list of directions used by the algorithm */
+    protected List<MoveAction> actions;
+    
+    /**
+     * Constructor that initializes the board based on a 2D boolean array
+     * representation of the board and starting coordinates.
+    **/
+    public BitBoard(boolean[][] initState, int y, int x) {
+        if (initState == null || initState.length == 0 ||
+                initState[0] == null || initState[0].length == 0) {
+            System.err.println(
+                "Invalid Board Dimensions.\n" +
+                "\tBoard requires positive dimension."
+            );
+            throw new IllegalArgumentException();
+        }
+        
+        for (int i = 1; i < initState.length; i++)
+            if (initState[i] == null ||
+                    initState[i].length != initState[0].length) {
+                System.err.println(
+                    "Invalid Board Dimensions.\n\tBoard must be rectangular."
+                );
+                throw new IllegalArgumentException();
+            }
+        
+        if (y < 0 || y >= initState.length || x < 0 ||
+                x >= initState[0].length) {
+            System.err.println("Out-Of-Bounds Starting Point.");
+            throw new IllegalArgumentException();
+        }
+        
+        if (initState[y][x]) {
+            System.err.println("Invalid Starting Point.");
+            throw new IllegalArgumentException();
+        }
+        
+        initialize(initState.length, initState[0].length);
+        block = new long[words];
+        notFirst = new long[words];
+        notLast = new long[words];
+        black = new long[words];
+        for (int i = 0, c = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++, c++) {
+                if (initState[i][j])
+                    set(block, c);
+                if (j > 0)
+                    set(notFirst, c);
+                if (j < bounds.width-1)
+                    set(notLast, c);
+                if ((i + j) % 2 == 0)
+                    set(black, c);
+            }
+        
+        initialState();
+        precheck = new Precheck(initState, y, x);
+        pathLength = cells - count(block);
+        path = new int[pathLength];
+        loc = y * bounds.width + x;
+        forward();
+    }
+    
+    /**
+     * Constructor that copies the given board. The constant masks are shared
+     * while the path and the free/used masks are duplicated.
+    **/
+    public BitBoard(BitBoard old) {
+        initialize(old.bounds.height, old.bounds.width);
+        block = old.block;
+        notFirst = old.notFirst;
+        notLast = old.notLast;
+        black = old.black;
+        used = old.used.clone();
+        free = old.free.clone();
+        path = old.path.clone();
+        pathSize = old.pathSize;
+        pathLength = old.pathLength;
+        loc = old.loc;
+        stop = old.stop;
+        timeLimit = old.timeLimit;
+        listener = old.listener;
+        precheck = old.precheck;
+    }
+    
+    /**
+     * initialize()
+     *
+     * Description:
+     *   Initializes the dimensions, scratch masks and the actions.
+     *
+     * Inputs:
+     *   rows - number of rows (height)
+     *   columns - number of columns (width)
+    **/
+    private final void initialize(int rows, int columns) {
+        bounds = new Dimension(columns, rows);
+        cells = rows * columns;
+        words = (cells + 63) >>> 6;
+        state = State.STOPPED;
+        stop = new StopFlag();
+        reach = new long[words];
+        next = new long[words];
+        shift = new long[words];
+        rest = new long[words];
+        
+        actions = new ArrayList<MoveAction>(4);
+        actions.add(new MoveLeftAction());
+        actions.add(new MoveRightAction());
+        actions.add(new MoveUpAction());
+        actions.add(new MoveDownAction());
+    }
+    
+    /**
+     * initialState() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Clears the path by marking every cell that is not blocked as free.
+    **/
+    @Override
+    public void initialState() {
+        used = new long[words];
+        free = new long[words];
+        for (int c = 0; c < cells; c++)
+            if (!test(block, c))
+                set(free, c);
+        pathSize = 0;
+    }
+    
+    /**
+     * test(), set(), clear()
+     *
+     * Description:
+     *   Single bit operations on a mask.
+    **/
+    protected static boolean test(long[] mask, int c)
+    {return (mask[c >>> 6] & (1L << c)) != 0;}
+    protected static void set(long[] mask, int c)
+    {mask[c >>> 6] |= 1L << c;}
+    protected static void clear(long[] mask, int c)
+    {mask[c >>> 6] &= ~(1L << c);}
+    
+    /**
+     * count()
+     *
+     * Description:
+     *   Returns the number of cells set in the given mask.
+    **/
+    protected static int count(long[] mask) {
+        int total = 0;
+        for (long word : mask)
+            total += Long.bitCount(word);
+        return total;
+    }
+    
+    /**
+     * shiftForward()
+     *
+     * Description:
+     *   Moves every bit of src n cells towards higher indices, storing the
+     *   result in dst (bits shifted past the last cell are dropped).
+    **/
+    protected void shiftForward(long[] src, int n, long[] dst) {
+        int ws = n >>> 6, bs = n & 63;
+        for (int i = words-1; i >= 0; i--) {
+            int s = i - ws;
+            long v = 0;
+            if (s >= 0) {
+                v = src[s] << bs;
+                if (bs != 0 && s > 0)
+                    v |= src[s-1] >>> (64 - bs);
+            }
+            dst[i] = v;
+        }
+        if ((cells & 63) != 0)
+            dst[words-1] &= (1L << cells) - 1;
+    }
+    
+    /**
+     * shiftBackward()
+     *
+     * Description:
+     *   Moves every bit of src n cells towards lower indices, storing the
+     *   result in dst.
+    **/
+    protected void shiftBackward(long[] src, int n, long[] dst) {
+        int ws = n >>> 6, bs = n & 63;
+        for (int i = 0; i < words; i++) {
+            int s = i + ws;
+            long v = 0;
+            if (s < words) {
+                v = src[s] >>> bs;
+                if (bs != 0 && s+1 < words)
+                    v |= src[s+1] << (64 - bs);
+            }
+            dst[i] = v;
+        }
+    }
+    
+    /**
+     * forward()
+     *
+     * Description:
+     *   Moves forward on the board by adding the current location to the
+     *   path and marking its bit as used.
+    **/
+    protected void forward() {
+        path[pathSize++] = loc;
+        set(used, loc);
+        clear(free, loc);
+    }
+    
+    /**
+     * backward()
+     *
+     * Description:
+     *   Moves backward on the board by removing the current location from
+     *   the path and marking its bit as free.
+    **/
+    protected void backward() {
+        pathSize--;
+        clear(used, loc);
+        set(free, loc);
+    }
+    
+    /**
+     * setTimeLimit()
+     *
+     * Description:
+     *   Sets how long the next search may run before it gives up.
+     *
+     * Inputs:
+     *   millis - time limit in milliseconds (0 for no limit)
+    **/
+    public void setTimeLimit(long millis) {
+        timeLimit = millis;
+    }
+    
+    /**
+     * stop()
+     *
+     * Description:
+     *   Stops the current search.
+    **/
+    public void stop() {
+        stop.stop();
+        state = State.STOPPED;
+    }
+    
+    /**
+     * isStopped()
+     *
+     * Description:
+     *   Determines whether the search should stop, looking at the clock only
+     *   every GameBoard.DEADLINE_NODES calls.
+    **/
+    protected boolean isStopped() {
+        return stop.isStopped() ||
+            ((++ticks & (GameBoard.DEADLINE_NODES-1)) == 0 &&
+                stop.checkDeadline());
+    }
+    
+    /**
+     * isTimedOut() (from Solver)
+     *
+     * Description:
+     *   Returns whether the last search gave up because of its time limit.
+    **/
+    @Override
+    public boolean isTimedOut() {
+        return stop.isExpired();
+    }
+    
+    /**
+     * getStatistics() (from Solver)
+     *
+     * Description:
+     *   The bitboard engine keeps no counters.
+    **/
+    @Override
+    public Statistics getStatistics() {
+        return null;
+    }
+    
+    /**
+     * getPrecheck() (from Solver)
+     *
+     * Description:
+     *   Returns the structural checks made by isSolvable().
+    **/
+    @Override
+    public Precheck getPrecheck() {
+        return precheck;
+    }
+    
+    /**
+     * getState() (from Solver)
+     *
+     * Description:
+     *   Returns the current state of the algorithm.
+    **/
+    @Override
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * getPathCells() (from Solver)
+     *
+     * Description:
+     *   Returns the squares of the current path as linear indices.
+    **/
+    @Override
+    public int[] getPathCells() {
+        return Arrays.copyOf(path, pathSize);
+    }
+    
+    /**
+     * pathToString() (from Solver)
+     *
+     * Description:
+     *   Returns a string to represent the current path, one "[y, x]" pair per
+     *   line.
+    **/
+    @Override
+    public String pathToString() {
+        StringBuilder text = new StringBuilder(pathSize * 10);
+        for (int i = 0; i < pathSize; i++)
+            text.append('[').append(path[i] / bounds.width).append(", ")
+                .append(path[i] % bounds.width).append("]\n");
+        return text.toString();
+    }
+    
+    /**
+     * isSolvable() (from Solver)
+     *
+     * Description:
+     *   Checks whether the current board is solvable, starting with the
+     *   structural checks (see Precheck).
+    **/
+    @Override
+    public boolean isSolvable() {
+        return precheck.run() && isDominoTileable() && isGoodMove();
+    }
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Starts the algorithm in search for a solution. Stops when solution is
+     *   found or 'stop' event is issued.
+    **/
+    @Override
+    public Boolean call() {
+        state = State.RUNNING;
+        stop = new StopFlag(timeLimit);
+        
+        if (findSolution()) {
+            state = State.FINISHED;
+            return true;
+        }
+        
+        state = State.STOPPED;
+        return false;
+    }
+    
+    /**
+     * solve() (from Solver)
+     *
+     * Description:
+     *   Runs the search on the calling thread (the same as call()).
+    **/
+    @Override
+    public boolean solve() {
+        return call();
+    }
+    
+    /**
+     * countPaths() (from Solver)
+     *
+     * Description:
+     *   Counts every path on the calling thread.
+    **/
+    @Override
+    public long countPaths() {
+        state = State.RUNNING;
+        stop = new StopFlag(timeLimit);
+        
+        long count = countSolutions();
+        state = (stop.isStopped())? State.STOPPED : State.FINISHED;
+        return count;
+    }
+    
+    /**
+     * setPathListener() (from Solver)
+     *
+     * Description:
+     *   Sets the listener told about every path found by countPaths().
+    **/
+    @Override
+    public void setPathListener(PathListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * isGoal() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Determines whether every free cell has been added to the path.
+    **/
+    @Override
+    public boolean isGoal() {
+        return pathSize == pathLength;
+    }
+    
+    /**
+     * actions() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Returns a list form of the possible actions to take.
+    **/
+    @Override
+    public List<MoveAction> actions(long[] state) {
+        return actions;
+    }
+    
+    /**
+     * findSolution() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Recursive solving algorithm. Checks if the goal has been reached or if
+     *   a 'stop' event was trigerred. Moves to all possible directions (if
+     *   possible) in order.
+    **/
+    @Override
+    public boolean findSolution() {
+        if (isGoal())
+            return true;
+        
+        if (isStopped())
+            return false;
+        
+        for (MoveAction action : actions(used))
+            if (action.forwardCondition()) {
+                action.updatePosition();
+                forward();
+                if (isGoodMove() && findSolution())
+                    return true;
+                backward();
+                action.undoPosition();
+            }
+        
+        return false;
+    }
+    
+    /**
+     * countSolutions()
+     *
+     * Description:
+     *   Same search as findSolution(), but goes on after each path found and
+     *   returns how many there were.
+    **/
+    protected long countSolutions() {
+        if (isGoal()) {
+            if (listener != null)
+                listener.pathFound(this);
+            return 1;
+        }
+        
+        if (isStopped())
+            return 0;
+        
+        long count = 0;
+        for (MoveAction action : actions(used))
+            if (action.forwardCondition()) {
+                action.updatePosition();
+                forward();
+                if (isGoodMove())
+                    count += countSolutions();
+                backward();
+                action.undoPosition();
+            }
+        
+        return count;
+    }
+    
+    /**
+     * isDominoTileable()
+     *
+     * Description:
+     *   Determines if the free cells plus the current location can be tiled
+     *   by dominoes by comparing the black and white cell counts.
+    **/
+    protected boolean isDominoTileable() {
+        int total = count(free) + 1;
+        int blacks = 0;
+        for (int i = 0; i < words; i++)
+            blacks += Long.bitCount(free[i] & black[i]);
+        if (test(black, loc))
+            blacks++;
+        return Math.abs(total - 2*blacks) < 2;
+    }
+    
+    /**
+     * isGoodMove()
+     *
+     * Description:
+     *   Determines whether the algorithm should continue in this direction.
+    **/
+    protected boolean isGoodMove() {
+        return blobCount() < 2 && singlePathCount() < 2;
+    }
+    
+    /**
+     * fill()
+     *
+     * Description:
+     *   Grows the seed already stored in 'reach' through the free cells until
+     *   it covers the whole blob containing it.
+    **/
+    protected void fill() {
+        boolean changed = true;
+        while (changed) {
+            System.arraycopy(reach, 0, next, 0, words);
+            shiftForward(reach, 1, shift);
+            for (int i = 0; i < words; i++)
+                next[i] |= shift[i] & notFirst[i];
+            shiftBackward(reach, 1, shift);
+            for (int i = 0; i < words; i++)
+                next[i] |= shift[i] & notLast[i];
+            shiftForward(reach, bounds.width, shift);
+            for (int i = 0; i < words; i++)
+                next[i] |= shift[i];
+            shiftBackward(reach, bounds.width, shift);
+            
+            changed = false;
+            for (int i = 0; i < words; i++) {
+                long v = (next[i] | shift[i]) & free[i];
+                changed |= v != reach[i];
+                reach[i] = v;
+            }
+        }
+    }
+    
+    /**
+     * blobCount()
+     *
+     * Description:
+     *   Counts the number of blobs of free cells by repeatedly flood filling
+     *   from the lowest remaining free cell.
+    **/
+    protected int blobCount() {
+        int blobs = 0;
+        System.arraycopy(free, 0, rest, 0, words);
+        for (int w = 0; w < words; w++)
+            while (rest[w] != 0) {
+                Arrays.fill(reach, 0);
+                reach[w] = Long.lowestOneBit(rest[w]);
+                fill();
+                for (int i = 0; i < words; i++)
+                    rest[i] &= ~reach[i];
+                blobs++;
+            }
+        return blobs;
+    }
+    
+    /**
+     * singlePathCount()
+     *
+     * Description:
+     *   Counts the free cells, not next to the current location, that have
+     *   exactly one free neighbor. Each neighbor direction is one mask and the
+     *   'exactly one of four' test is done with bitwise logic.
+    **/
+    protected int singlePathCount() {
+        long[] l = reach, r = next, u = shift, d = rest;
+        shiftForward(free, 1, l);
+        shiftBackward(free, 1, r);
+        shiftForward(free, bounds.width, u);
+        shiftBackward(free, bounds.width, d);
+        
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            long a = l[i] & notFirst[i], b = r[i] & notLast[i];
+            long c = u[i], e = d[i];
+            long odd = a ^ b ^ c ^ e;
+            long many = (a & b) | (a & c) | (a & e) | (b & c) | (b & e) |
+                (c & e);
+            count += Long.bitCount(odd & ~many & free[i]);
+        }
+        
+        /* cells next to the current location still have a way in */
+        int width = bounds.width;
+        if (test(notFirst, loc) && oneWayOut(loc-1))
+            count--;
+        if (test(notLast, loc) && oneWayOut(loc+1))
+            count--;
+        if (loc >= width && oneWayOut(loc-width))
+            count--;
+        if (loc + width < cells && oneWayOut(loc+width))
+            count--;
+        return count;
+    }
+    
+    /**
+     * oneWayOut()
+     *
+     * Description:
+     *   Determines if the free cell c has exactly one free neighbor.
+    **/
+    protected boolean oneWayOut(int c) {
+        if (!test(free, c))
+            return false;
+        int ways = 0, width = bounds.width;
+        if (test(notFirst, c) && test(free, c-1))
+            ways++;
+        if (test(notLast, c) && test(free, c+1))
+            ways++;
+        if (c >= width && test(free, c-width))
+            ways++;
+        if (c + width < cells && test(free, c+width))
+            ways++;
+        return ways == 1;
+    }
+    
+    /**
+     * MoveAction class defines the general procedure for moving
+     * forward/backward on the board
+    **/
+    protected abstract class MoveAction extends AbstractAction {
+        public void actionPerformed(ActionEvent e) {
+            if (state == State.STOPPED && forwardCondition()) {
+                updatePosition();
+                forward();
+            }
+        }
+        
+        public void undoPosition() {loc = path[pathSize-1];}
+        public abstract void updatePosition();
+        public abstract boolean forwardCondition();
+    }
+    
+    /**
+     * MoveLeftAction class allows moving to the left
+    **/
+    protected class MoveLeftAction extends MoveAction {
+        public void updatePosition()
+        {loc--;}
+        public boolean forwardCondition()
+        {return test(notFirst, loc) && test(free, loc-1);}
+    }
+    
+    /**
+     * MoveRightAction class allows moving to the right
+    **/
+    protected class MoveRightAction extends MoveAction {
+        public void updatePosition()
+        {loc++;}
+        public boolean forwardCondition()
+        {return test(notLast, loc) && test(free, loc+1);}
+    }
+    
+    /**
+     * MoveUpAction class allows moving up
+    **/
+    protected class MoveUpAction extends MoveAction {
+        public void updatePosition()
+        {loc -= bounds.width;}
+        public boolean forwardCondition()
+        {return loc >= bounds.width && test(free, loc-bounds.width);}
+    }
+    
+    /**
+     * MoveDownAction class allows moving down
+    **/
+    protected class MoveDownAction extends MoveAction {
+        public void updatePosition()
+        {loc += bounds.width;}
+        public boolean forwardCondition()
+        {return loc + bounds.width < cells && test(free, loc+bounds.width);}
+    }
+}
\ No newline at end of file
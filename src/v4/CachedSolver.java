@@ -0,0 +1,251 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * CachedSolver class that puts a SolutionCache in front of another engine:
+ * a puzzle already answered (or a rotation or reflection of one) is answered
+ * from the cache, and anything else is searched by the engine and its answer
+ * stored. Answers cut short by the time limit are not stored.
+**/
+class CachedSolver implements Solver {
+    /* mode bits of the cache keys */
+    protected static final int COUNT = 1, CYCLE = 2;
+    /* engine that searches on a miss */
+    protected final Solver solver;
+    /* cache shared by the engines */
+    protected final SolutionCache cache;
+    /* puzzle being solved */
+    protected final boolean[][] grid;
+    protected final int y, x, endY, endX;
+    /* whether the path has to close a cycle */
+    protected final boolean cycle;
+    /* told about every path found while counting (may be null) */
+    protected PathListener listener;
+    /* path of the last answer taken from the cache (null if none) */
+    protected int[] cells;
+    /* whether the last answer was taken from the cache, and the state the
+     * engine would have ended in (STOPPED for a puzzle with no path, as
+     * after an exhaustive search)
+     */
+    protected boolean hit;
+    protected State hitState;
+    
+    /**
+     * Constructor that wraps an engine for the given puzzle, whose path
+     * ends on (endY, endX) (negative to end anywhere) and may have to close
+     * a cycle.
+    **/
+    public CachedSolver(Solver solver, SolutionCache cache, Puzzle puzzle,
+            int endY, int endX, boolean cycle) {
+        this.solver = solver;
+        this.cache = cache;
+        this.grid = puzzle.grid;
+        this.y = puzzle.y;
+        this.x = puzzle.x;
+        this.endY = endY;
+        this.endX = endX;
+        this.cycle = cycle;
+    }
+    
+    /**
+     * key()
+     *
+     * Description:
+     *   Returns the cache key of the puzzle, for counting or for finding a
+     *   path.
+    **/
+    protected SolutionCache.Key key(boolean counting) {
+        int mode = ((counting)? COUNT : 0) | ((cycle)? CYCLE : 0);
+        return SolutionCache.key(grid, y, x, endY, endX, mode);
+    }
+    
+    /**
+     * isSolvable() (from Solver)
+     *
+     * Description:
+     *   Runs the engine's checks, which are cheap next to a search and tell
+     *   why a board has no path.
+    **/
+    @Override
+    public boolean isSolvable() {
+        return solver.isSolvable();
+    }
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Answers from the cache, or runs the engine's search and stores its
+     *   answer.
+    **/
+    @Override
+    public Boolean call() {
+        return find(true);
+    }
+    
+    /**
+     * solve() (from Solver)
+     *
+     * Description:
+     *   Same as call(), with the engine searching on the calling thread only.
+    **/
+    @Override
+    public boolean solve() {
+        return find(false);
+    }
+    
+    /**
+     * find()
+     *
+     * Description:
+     *   Looks the puzzle up and searches for a path on a miss.
+     *
+     * Inputs:
+     *   parallel - whether the engine may use its worker threads
+     *
+     * Return Value:
+     *   boolean - true if a path was found
+     *           - false otherwise
+    **/
+    protected boolean find(boolean parallel) {
+        SolutionCache.Key key = key(false);
+        SolutionCache.Result result = cache.get(key);
+        if (result != null) {
+            hit = true;
+            cells = (result.path != null)?
+                key.fromCanonical(result.path) : null;
+            hitState = (cells != null)? State.FINISHED : State.STOPPED;
+            return cells != null;
+        }
+        
+        hit = false;
+        cells = null;
+        boolean found = (parallel)? solver.call() : solver.solve();
+        if (found)
+            cache.putPath(key, solver.getPathCells());
+        else if (!solver.isTimedOut())
+            cache.putPath(key, null);
+        return found;
+    }
+    
+    /**
+     * countPaths() (from Solver)
+     *
+     * Description:
+     *   Answers from the cache, or counts with the engine and stores the
+     *   count. Nothing is looked up while a listener has to be told about
+     *   every path.
+    **/
+    @Override
+    public long countPaths() {
+        hit = false;
+        cells = null;
+        if (listener != null)
+            return solver.countPaths();
+        
+        SolutionCache.Key key = key(true);
+        SolutionCache.Result result = cache.get(key);
+        if (result != null) {
+            hit = true;
+            hitState = State.FINISHED;
+            return result.count;
+        }
+        long count = solver.countPaths();
+        if (!solver.isTimedOut())
+            cache.putCount(key, count);
+        return count;
+    }
+    
+    /**
+     * setPathListener() (from Solver)
+     *
+     * Description:
+     *   Sets the listener told about every path found by countPaths().
+    **/
+    @Override
+    public void setPathListener(PathListener listener) {
+        this.listener = listener;
+        solver.setPathListener(listener);
+    }
+    
+    /**
+     * getState() (from Solver)
+     *
+     * Description:
+     *   Returns the current state of the algorithm.
+    **/
+    @Override
+    public State getState() {
+        return (hit)? hitState : solver.getState();
+    }
+    
+    /**
+     * isTimedOut() (from Solver)
+     *
+     * Description:
+     *   Returns whether the last search gave up because of its time limit.
+    **/
+    @Override
+    public boolean isTimedOut() {
+        return !hit && solver.isTimedOut();
+    }
+    
+    /**
+     * getStatistics() (from Solver)
+     *
+     * Description:
+     *   Returns the engine's counters (null if the answer came from the
+     *   cache, since nothing was searched).
+    **/
+    @Override
+    public Statistics getStatistics() {
+        return (hit)? null : solver.getStatistics();
+    }
+    
+    /**
+     * getPrecheck() (from Solver)
+     *
+     * Description:
+     *   Returns the engine's structural checks.
+    **/
+    @Override
+    public Precheck getPrecheck() {
+        return solver.getPrecheck();
+    }
+    
+    /**
+     * getPathCells() (from Solver)
+     *
+     * Description:
+     *   Returns the squares of the path found as linear indices (empty if
+     *   none).
+    **/
+    @Override
+    public int[] getPathCells() {
+        if (!hit)
+            return solver.getPathCells();
+        return (cells != null)? cells.clone() : new int[0];
+    }
+    
+    /**
+     * pathToString() (from Solver)
+     *
+     * Description:
+     *   Returns a string to represent the path found, one "[y, x]" pair per
+     *   line.
+    **/
+    @Override
+    public String pathToString() {
+        if (!hit)
+            return solver.pathToString();
+        int width = grid[0].length;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; cells != null && i < cells.length; i++)
+            builder.append('[').append(cells[i] / width).append(", ")
+                .append(cells[i] % width).append("]\n");
+        return builder.toString();
+    }
+}
\ No newline at end of file
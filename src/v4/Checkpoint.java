@@ -0,0 +1,179 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint class that saves the progress of a search split between workers
+ * (see GameBoard.submitTasks()) so it can go on after a restart. Every
+ * subproblem not finished yet is saved as the path it started from and the
+ * path its worker had reached: the search tries moves in the same order
+ * every time, so every path tried before that one was already searched. A
+ * file holds, in big-endian order:
+ *   magic    3 bytes  'H' 'P' 'C'
+ *   version  1 byte   VERSION
+ *   rows, columns, fingerprint, number of subproblems   4 bytes each
+ *   for each subproblem:
+ *     root   4 bytes, squares of the path it started from
+ *     length 4 bytes, squares of the path reached
+ *     start  4 bytes, first square of the path
+ *     moves  2 bits per move after the start (see BinaryPuzzle), lowest
+ *            bits first
+ *   checksum 4 bytes, CRC-32 of every byte of the file before it
+ * The fingerprint stands for the board and the settings the order of the
+ * moves depends on, so a checkpoint is only resumed by the same search.
+**/
+class Checkpoint {
+    /* first bytes of a checkpoint */
+    protected static final byte[] MAGIC = {'H', 'P', 'C'};
+    /* version of the format written */
+    protected static final int VERSION = 1;
+    /* size of the board and fingerprint of the search */
+    protected final int rows, columns, fingerprint;
+    /* number of squares of the path each subproblem started from */
+    protected final int[] roots;
+    /* path (linear indices) each subproblem had reached */
+    protected final int[][] paths;
+    
+    /**
+     * Constructor that holds the given subproblems.
+    **/
+    public Checkpoint(int rows, int columns, int fingerprint, int[] roots,
+            int[][] paths) {
+        this.rows = rows;
+        this.columns = columns;
+        this.fingerprint = fingerprint;
+        this.roots = roots;
+        this.paths = paths;
+    }
+    
+    /**
+     * write()
+     *
+     * Description:
+     *   Writes the checkpoint to a temporary file and moves it over the
+     *   given one, so a crash while writing leaves the last checkpoint whole.
+    **/
+    public void write(String file) throws IOException {
+        int size = 4 + 16 + 4;
+        for (int[] path : paths)
+            size += 12 + (Math.max(path.length - 1, 0) + 3) / 4;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        
+        buffer.put(MAGIC).put((byte) VERSION).putInt(rows).putInt(columns)
+            .putInt(fingerprint).putInt(paths.length);
+        for (int n = 0; n < paths.length; n++) {
+            int[] path = paths[n];
+            int moves = Math.max(path.length - 1, 0);
+            byte[] packed = new byte[(moves + 3) / 4];
+            for (int m = 0; m < moves; m++)
+                packed[m >> 2] |= BinaryPuzzle.move(path[m], path[m+1],
+                    columns) << ((m & 3) * 2);
+            buffer.putInt(roots[n]).putInt(path.length)
+                .putInt((path.length > 0)? path[0] : 0).put(packed);
+        }
+        
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        
+        Path target = Paths.get(file);
+        Path temp = Paths.get(file + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * read()
+     *
+     * Description:
+     *   Reads a checkpoint file, checking that every path stays on the board.
+     *
+     * Inputs:
+     *   file - path of the checkpoint
+     *
+     * Return Value:
+     *   Checkpoint - checkpoint read
+    **/
+    public static Checkpoint read(String file) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(file));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            for (byte b : MAGIC)
+                if (buffer.get() != b)
+                    throw new IOException(file + ": Not a checkpoint");
+            int version = buffer.get();
+            if (version != VERSION)
+                throw new IOException(file + ": Unsupported version " +
+                    version);
+            
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 4);
+            if (ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() !=
+                    (int) crc.getValue())
+                throw new IOException(file + ": Checksum mismatch");
+            
+            int rows = buffer.getInt(), columns = buffer.getInt();
+            int fingerprint = buffer.getInt(), count = buffer.getInt();
+            if (rows <= 0 || columns <= 0 ||
+                    (long) rows * columns > Integer.MAX_VALUE || count < 0 ||
+                    count > bytes.length / 12)
+                throw new IOException(file + ": Damaged checkpoint");
+            int[] roots = new int[count];
+            int[][] paths = new int[count][];
+            for (int n = 0; n < count; n++) {
+                roots[n] = buffer.getInt();
+                paths[n] = readPath(file, buffer, rows, columns);
+                if (roots[n] < 1 || roots[n] > paths[n].length)
+                    throw new IOException(file + ": Damaged checkpoint");
+            }
+            return new Checkpoint(rows, columns, fingerprint, roots, paths);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(file + ": Truncated checkpoint");
+        }
+    }
+    
+    /**
+     * readPath()
+     *
+     * Description:
+     *   Reads the path of a subproblem.
+    **/
+    protected static int[] readPath(String file, ByteBuffer buffer, int rows,
+            int columns) throws IOException {
+        int length = buffer.getInt(), start = buffer.getInt();
+        if (length < 1 || length > rows * columns || start < 0 ||
+                start >= rows * columns)
+            throw new IOException(file + ": Damaged checkpoint");
+        
+        int[] path = new int[length];
+        int y = start / columns, x = start % columns, bits = 0;
+        for (int n = 0; n < length; n++) {
+            if (n > 0) {
+                if (((n - 1) & 3) == 0)
+                    bits = buffer.get();
+                switch ((bits >> (((n - 1) & 3) * 2)) & 3) {
+                    case BinaryPuzzle.UP: y--; break;
+                    case BinaryPuzzle.RIGHT: x++; break;
+                    case BinaryPuzzle.DOWN: y++; break;
+                    default: x--; break;
+                }
+                if (y < 0 || y >= rows || x < 0 || x >= columns)
+                    throw new IOException(file + ": Path leaves the board");
+            }
+            path[n] = y * columns + x;
+        }
+        return path;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Convert class that writes puzzle files in the binary format (see
+ * BinaryPuzzle), next to the originals with a '.bin' extension or all in a
+ * single archive (see PuzzleArchive), printing one line per puzzle:
+ *   <file> <CONVERTED|ERROR> <bytes read> <bytes written or message>
+ * When a time limit is given each puzzle is also solved first, 'numThreads'
+ * at a time, and the path found (or the fact that there is none) is stored
+ * with it. Files already in the binary format are skipped.
+**/
+public class Convert implements Runnable {
+    /* extension of the files written */
+    protected static final String EXTENSION = ".bin";
+    /* puzzle files to convert */
+    protected List<String> files;
+    /* archive to write (null to write a file per puzzle) */
+    protected String archive;
+    /* settings used to build the engine of each puzzle */
+    protected Options options;
+    
+    /**
+     * Constructor that collects the puzzle files matching the given
+     * directory or glob.
+    **/
+    public Convert(String pattern, String archive, Options options)
+            throws IOException {
+        this.options = options;
+        this.archive = archive;
+        files = Batch.listFiles(pattern);
+        files.removeIf(file -> file.endsWith(EXTENSION) ||
+            file.equals(archive) || PuzzleArchive.isArchive(file));
+    }
+    
+    /**
+     * run() (from Runnable)
+     *
+     * Description:
+     *   Reads (and solves) the puzzles on a pool of 'numThreads' threads,
+     *   writes them in the order of the files as they become ready, and
+     *   prints a summary on standard error.
+    **/
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        long bytesRead = 0, bytesWritten = 0;
+        int converted = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(options.numThreads);
+        List<Future<byte[]>> records = new ArrayList<Future<byte[]>>();
+        for (String file : files)
+            records.add(pool.submit(() -> encode(file)));
+        pool.shutdown();
+        
+        try (PuzzleArchive.Writer writer = (archive != null)?
+                new PuzzleArchive.Writer(archive) : null) {
+            for (int n = 0; n < files.size(); n++) {
+                String file = files.get(n), result;
+                long size = new File(file).length();
+                try {
+                    byte[] record = records.get(n).get();
+                    if (writer != null)
+                        writer.add(file, record);
+                    else
+                        Files.write(Paths.get(target(file)), record);
+                    converted++;
+                    bytesRead += size;
+                    bytesWritten += record.length;
+                    result = "CONVERTED\t" + size + "\t" + record.length;
+                } catch (ExecutionException e) {
+                    result = "ERROR\t" + size + "\t" +
+                        e.getCause().getMessage();
+                } catch (IOException e) {
+                    if (writer != null)
+                        throw e;
+                    result = "ERROR\t" + size + "\t" + e.getMessage();
+                }
+                System.out.println(file + "\t" + result);
+            }
+        } catch (IOException e) {
+            System.err.println("Write Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            System.err.println("Conversion Interrupted");
+        }
+        pool.shutdownNow();
+        
+        System.out.flush();
+        System.err.println(
+            "Converted " + converted + " of " + files.size() +
+            " puzzles (" + bytesRead + " bytes to " + bytesWritten +
+            ") in " + (System.currentTimeMillis() - startTime) + " ms"
+        );
+    }
+    
+    /**
+     * target()
+     *
+     * Description:
+     *   Returns the path a puzzle file is converted to.
+    **/
+    protected static String target(String file) {
+        return file.replaceFirst("\\.[^./\\\\]*$", "") + EXTENSION;
+    }
+    
+    /**
+     * encode()
+     *
+     * Description:
+     *   Reads (and solves) a single puzzle on the calling thread and returns
+     *   its record.
+     *
+     * Inputs:
+     *   file - path of the puzzle file
+     *
+     * Return Value:
+     *   byte[] - record of the puzzle
+    **/
+    protected byte[] encode(String file) throws IOException {
+        Puzzle puzzle = Puzzle.read(file);
+        if (options.limit > 0)
+            solve(puzzle);
+        return BinaryPuzzle.encode(puzzle);
+    }
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Solves a puzzle and stores its path in it, or an empty path if it
+     *   has none. Nothing is stored if the search timed out.
+    **/
+    protected void solve(Puzzle puzzle) {
+        Solver board = options.newSolver(puzzle, 1);
+        if (board.isSolvable() && board.solve())
+            puzzle.solution = board.getPathCells();
+        else if (!board.isTimedOut())
+            puzzle.solution = new int[0];
+    }
+}
\ No newline at end of file
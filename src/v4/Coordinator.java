@@ -0,0 +1,694 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Coordinator class that splits the search of a board into subproblems (the
+ * paths of GameBoard.frontier()) and hands them over TCP to worker processes
+ * on this machine or others (see Worker), so a search is not limited to the
+ * cores of one machine. Each worker is given as many subproblems as it has
+ * threads, and another one whenever it answers, so faster machines take
+ * more of them. Once none are left, idle workers are given copies of the
+ * subproblems handed out the longest ago, so a slow machine cannot hold up
+ * the end of the search: the first answer counts and the other copy is
+ * cancelled. The subproblems of a worker that disconnects go back in the
+ * queue, and the first path found stops every worker. Messages are written
+ * with DataOutputStream:
+ *   coordinator  MAGIC, VERSION, the puzzle (4 bytes of length, then its
+ *                BinaryPuzzle record, with the required end), the move
+ *                ordering, cycle and bidirectional
+ *   worker       MAGIC, VERSION, number of threads
+ *   TASK id, length, squares    a subproblem, as the path it starts from
+ *   RESULT id, FOUND|NONE|STOPPED, [length, squares,] counters
+ *                               the answer to a subproblem (see SearchStats)
+ *   CANCEL id                   a subproblem answered by another worker
+ *   STOP                        the end of the search
+**/
+class Coordinator implements Solver {
+    /* first bytes sent by both ends of a connection */
+    protected static final byte[] MAGIC = {'H', 'P', 'D'};
+    /* version of the protocol */
+    protected static final int VERSION = 1;
+    /* messages after the first ones */
+    protected static final int TASK = 1, RESULT = 2, CANCEL = 3, STOP = 4;
+    /* answers to a subproblem */
+    protected static final int FOUND = 0, NONE = 1, STOPPED = 2;
+    /* fewest subproblems the search is split into */
+    protected static final int SUBPROBLEMS = 256;
+    /* most workers searching the same subproblem at once */
+    protected static final int COPIES = 2;
+    /* longest time (ms) a wait lasts before checking for a 'stop' */
+    protected static final long STOP_CHECK_MS = 50;
+    /* longest time (ms) the workers have to answer a STOP */
+    protected static final long STOP_WAIT_MS = 10000;
+    /* board searched, which is given the path found */
+    protected final GameBoard board;
+    /* record of the puzzle sent to the workers */
+    protected final byte[] record;
+    /* settings the search depends on, sent to the workers */
+    protected final Heuristic heuristic;
+    protected final boolean cycle, bidirectional;
+    /* socket the workers connect to */
+    protected final ServerSocket server;
+    /* workers connected */
+    protected final List<Connection> connections;
+    /* current state of the algorithm */
+    protected volatile State state = State.STOPPED;
+    /* every subproblem, by id */
+    protected Task[] tasks;
+    /* subproblems not handed to any worker */
+    protected Deque<Task> pending;
+    /* subproblems handed out and not answered, oldest first */
+    protected Set<Task> running;
+    /* number of subproblems not answered */
+    protected int unfinished;
+    /* path found (null if none) */
+    protected int[] solution;
+    /* whether the search is over */
+    protected boolean over;
+    
+    /**
+     * Task class that holds a subproblem and the workers searching it.
+    **/
+    protected static class Task {
+        /* position in 'tasks' */
+        protected final int id;
+        /* path the subproblem starts from */
+        protected final int[] prefix;
+        /* workers searching it */
+        protected final List<Connection> holders;
+        /* whether it was answered */
+        protected boolean done;
+        
+        public Task(int id, int[] prefix) {
+            this.id = id;
+            this.prefix = prefix;
+            holders = new ArrayList<Connection>(COPIES);
+        }
+    }
+    
+    /**
+     * Constructor that sets up the search of a puzzle with the given
+     * settings, and starts listening for workers on the given port (0 for
+     * any free port) of every address of the machine. A coordinator runs a
+     * single search.
+    **/
+    public Coordinator(Puzzle puzzle, int port, Options options)
+            throws IOException {
+        board = new GameBoard(puzzle.grid, puzzle.y, puzzle.x, SUBPROBLEMS);
+        options.configure(board, puzzle);
+        board.setDeadEndCache(0);
+        board.setCheckpoint(null, 0);
+        
+        Puzzle sent = new Puzzle(puzzle.name, puzzle.grid, puzzle.y, puzzle.x);
+        sent.endY = (options.endY >= 0)? options.endY : puzzle.endY;
+        sent.endX = (options.endY >= 0)? options.endX : puzzle.endX;
+        record = BinaryPuzzle.encode(sent);
+        heuristic = options.heuristic;
+        cycle = options.cycle;
+        bidirectional = options.bidirectional;
+        
+        connections = new CopyOnWriteArrayList<Connection>();
+        server = new ServerSocket(port);
+    }
+    
+    /**
+     * isSolvable() (from Solver)
+     *
+     * Description:
+     *   Runs the board's checks before handing anything out.
+    **/
+    @Override
+    public boolean isSolvable() {
+        return board.isSolvable();
+    }
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Splits the search, hands the subproblems to the workers as they
+     *   connect and waits until one of them finds a path, all of them are
+     *   answered, or the search is stopped or times out. The workers are
+     *   then stopped and given STOP_WAIT_MS to answer.
+     *
+     * Return Value:
+     *   boolean - true solution was found
+     *           - false if no solution was found or process was stopped
+    **/
+    @Override
+    public Boolean call() {
+        state = State.RUNNING;
+        board.prepare();
+        Queue<GameBoard.WorkerBoard> split = board.frontier();
+        synchronized (this) {
+            tasks = new Task[split.size()];
+            pending = new ArrayDeque<Task>();
+            running = new LinkedHashSet<Task>();
+            for (int id = 0; id < tasks.length; id++) {
+                GameBoard task = split.poll();
+                tasks[id] = new Task(id,
+                    Arrays.copyOf(task.path, task.pathSize));
+                pending.add(tasks[id]);
+            }
+            unfinished = tasks.length;
+        }
+        
+        Thread acceptor = new Thread(this::accept, "coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.err.println("Waiting for workers on port " +
+            server.getLocalPort() + " (" + tasks.length + " subproblems)");
+        
+        synchronized (this) {
+            try {
+                while (!over && !board.stop.checkDeadline())
+                    wait(STOP_CHECK_MS);
+            } catch (InterruptedException e) {
+                System.err.println("Coordinator Interrupted");
+            }
+            over = true;
+            notifyAll();
+        }
+        
+        try {
+            server.close();
+        } catch (IOException e) {}
+        for (Connection connection : connections)
+            connection.stop();
+        long deadline = System.currentTimeMillis() + STOP_WAIT_MS;
+        for (Connection connection : connections) {
+            try {
+                connection.thread.join(
+                    Math.max(deadline - System.currentTimeMillis(), 1));
+            } catch (InterruptedException e) {}
+            connection.close();
+        }
+        
+        if (solution != null) {
+            for (int n = board.pathSize; n < solution.length; n++) {
+                board.locate(solution[n]);
+                board.forward();
+            }
+            state = State.FINISHED;
+            return true;
+        }
+        state = State.STOPPED;
+        return false;
+    }
+    
+    /**
+     * solve() (from Solver)
+     *
+     * Description:
+     *   Same as call(): the search always runs on the workers.
+    **/
+    @Override
+    public boolean solve() {
+        return call();
+    }
+    
+    /**
+     * accept()
+     *
+     * Description:
+     *   Takes the connections of the workers until the socket is closed.
+    **/
+    protected void accept() {
+        try {
+            for (;;) {
+                Socket socket = server.accept();
+                try {
+                    Connection connection = new Connection(socket);
+                    connections.add(connection);
+                    connection.thread.start();
+                } catch (IOException e) {
+                    System.err.println("Lost worker: " + e.getMessage());
+                    socket.close();
+                }
+            }
+        } catch (IOException e) {
+            if (!server.isClosed())
+                System.err.println("Accept Error: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * next()
+     *
+     * Description:
+     *   Returns the next subproblem to hand to a worker: one not handed out
+     *   yet, or else a copy of the oldest one still running that the worker
+     *   does not have and that has fewer than COPIES workers.
+     *
+     * Return Value:
+     *   Task - subproblem to hand out (null if there is none)
+    **/
+    protected synchronized Task next(Connection connection) {
+        if (over)
+            return null;
+        Task task = pending.poll();
+        if (task != null) {
+            running.add(task);
+        } else {
+            for (Task copy : running)
+                if (copy.holders.size() < COPIES &&
+                        !copy.holders.contains(connection)) {
+                    task = copy;
+                    break;
+                }
+            if (task == null)
+                return null;
+        }
+        task.holders.add(connection);
+        return task;
+    }
+    
+    /**
+     * finish()
+     *
+     * Description:
+     *   Takes a worker's answer to a subproblem. A path ends the search,
+     *   and an exhausted subproblem is cancelled on the other workers
+     *   searching it. A subproblem a worker stopped goes back in the queue
+     *   if no other worker has it.
+     *
+     * Inputs:
+     *   connection - worker answering
+     *   task - subproblem answered
+     *   status - FOUND, NONE or STOPPED
+     *   path - path found (FOUND only)
+    **/
+    protected synchronized void finish(Connection connection, Task task,
+            int status, int[] path) {
+        task.holders.remove(connection);
+        if (task.done || over)
+            return;
+        
+        if (status == FOUND) {
+            solution = path;
+            over = true;
+        } else if (status == NONE) {
+            task.done = true;
+            running.remove(task);
+            for (Connection holder : task.holders)
+                holder.send(CANCEL, task);
+            over = --unfinished == 0;
+        } else if (task.holders.isEmpty()) {
+            running.remove(task);
+            pending.addFirst(task);
+        }
+        notifyAll();
+    }
+    
+    /**
+     * lost()
+     *
+     * Description:
+     *   Puts the subproblems of a worker that disconnected back in the
+     *   queue, unless another worker has them.
+    **/
+    protected synchronized void lost(Connection connection) {
+        connections.remove(connection);
+        for (Task task : connection.outstanding) {
+            task.holders.remove(connection);
+            if (!task.done && task.holders.isEmpty()) {
+                running.remove(task);
+                pending.addFirst(task);
+            }
+        }
+        connection.outstanding.clear();
+        notifyAll();
+    }
+    
+    /**
+     * isOver()
+     *
+     * Description:
+     *   Determines whether the search is over.
+    **/
+    protected synchronized boolean isOver() {
+        return over;
+    }
+    
+    /**
+     * awaitWork()
+     *
+     * Description:
+     *   Blocks until a subproblem may be ready to hand out, the search is
+     *   over, or STOP_CHECK_MS have passed.
+    **/
+    protected synchronized void awaitWork() {
+        try {
+            if (!over && pending.isEmpty())
+                wait(STOP_CHECK_MS);
+        } catch (InterruptedException e) {}
+    }
+    
+    /**
+     * isPath()
+     *
+     * Description:
+     *   Determines whether a path sent by a worker covers every free square
+     *   once, one step at a time, starting with the board's path.
+    **/
+    protected boolean isPath(int[] cells) {
+        int width = board.getWidth(), size = width * board.getHeight();
+        boolean[] seen = new boolean[size];
+        if (cells.length != board.pathLength)
+            return false;
+        for (int n = 0; n < cells.length; n++) {
+            int c = cells[n];
+            if (c < 0 || c >= size || seen[c] || board.getSquare(
+                    new Point(c % width, c / width)) == Square.BLOCK)
+                return false;
+            if (n < board.pathSize && c != board.path[n])
+                return false;
+            if (n > 0 && Math.abs(c / width - cells[n-1] / width) +
+                    Math.abs(c % width - cells[n-1] % width) != 1)
+                return false;
+            seen[c] = true;
+        }
+        return true;
+    }
+    
+    /**
+     * readMagic()
+     *
+     * Description:
+     *   Reads the first bytes sent by the other end of a connection and
+     *   checks them.
+    **/
+    protected static void readMagic(DataInputStream in, String name)
+            throws IOException {
+        for (byte b : MAGIC)
+            if (in.readByte() != b)
+                throw new IOException(name + ": Not a coordinator or worker");
+        int version = in.readByte();
+        if (version != VERSION)
+            throw new IOException(name + ": Unsupported version " + version);
+    }
+    
+    /**
+     * readPath()
+     *
+     * Description:
+     *   Reads a path written by writePath(), of at most 'cells' squares.
+    **/
+    protected static int[] readPath(DataInputStream in, int cells)
+            throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > cells)
+            throw new IOException("Invalid path length " + length);
+        int[] path = new int[length];
+        for (int n = 0; n < length; n++)
+            path[n] = in.readInt();
+        return path;
+    }
+    
+    /**
+     * writePath()
+     *
+     * Description:
+     *   Writes a path: its length, then its squares as linear indices.
+    **/
+    protected static void writePath(DataOutputStream out, int[] path)
+            throws IOException {
+        out.writeInt(path.length);
+        for (int c : path)
+            out.writeInt(c);
+    }
+    
+    /**
+     * Connection class that talks to a single worker on a thread of its own.
+    **/
+    protected class Connection implements Runnable {
+        /* socket to the worker and its streams */
+        protected final Socket socket;
+        protected final DataInputStream in;
+        protected final DataOutputStream out;
+        /* address of the worker */
+        protected final String name;
+        /* thread running the connection */
+        protected final Thread thread;
+        /* subproblems handed to the worker and not answered */
+        protected final Set<Task> outstanding;
+        /* counters of the worker's searches */
+        protected SearchStats stats;
+        /* whether STOP was sent (guarded by 'out') */
+        protected boolean stopped;
+        
+        /**
+         * Constructor that sets up the streams of an accepted socket and
+         * sends the puzzle.
+        **/
+        public Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+            name = socket.getInetAddress().getHostAddress() + ":" +
+                socket.getPort();
+            thread = new Thread(this, "worker " + name);
+            thread.setDaemon(true);
+            outstanding = new HashSet<Task>();
+            
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(record.length);
+            out.write(record);
+            out.writeUTF(heuristic.name());
+            out.writeBoolean(cycle);
+            out.writeBoolean(bidirectional);
+            out.flush();
+        }
+        
+        /**
+         * run() (from Runnable)
+         *
+         * Description:
+         *   Keeps the worker's threads busy with subproblems and takes its
+         *   answers. Once the search is over, waits for the answers still
+         *   due and closes the connection.
+        **/
+        @Override
+        public void run() {
+            try {
+                readMagic(in, name);
+                int slots = in.readInt();
+                if (slots < 1)
+                    throw new IOException("Invalid number of threads");
+                stats = board.getStatistics().stripe(name);
+                System.err.println("Worker " + name + " joined with " +
+                    slots + " threads");
+                
+                for (;;) {
+                    Task task;
+                    while (outstanding.size() < slots &&
+                            (task = next(this)) != null) {
+                        outstanding.add(task);
+                        send(TASK, task);
+                    }
+                    if (outstanding.isEmpty()) {
+                        if (isOver()) {
+                            stop();
+                            break;
+                        }
+                        awaitWork();
+                    } else {
+                        read();
+                    }
+                }
+            } catch (EOFException e) {
+                if (!isOver())
+                    System.err.println("Lost worker " + name +
+                        ": Disconnected");
+            } catch (IOException e) {
+                if (!isOver())
+                    System.err.println("Lost worker " + name + ": " +
+                        e.getMessage());
+            } finally {
+                lost(this);
+                close();
+            }
+        }
+        
+        /**
+         * read()
+         *
+         * Description:
+         *   Reads the worker's answer to one of its subproblems.
+        **/
+        protected void read() throws IOException {
+            if (in.readByte() != RESULT)
+                throw new IOException("Unexpected message");
+            int id = in.readInt();
+            if (id < 0 || id >= tasks.length ||
+                    !outstanding.remove(tasks[id]))
+                throw new IOException("Unexpected subproblem " + id);
+            int status = in.readByte();
+            int[] path = null;
+            if (status == FOUND) {
+                path = readPath(in, board.getWidth() * board.getHeight());
+                if (!isPath(path))
+                    throw new IOException("Invalid path");
+            } else if (status != NONE && status != STOPPED) {
+                throw new IOException("Invalid answer " + status);
+            }
+            stats.addFrom(in);
+            finish(this, tasks[id], status, path);
+        }
+        
+        /**
+         * send()
+         *
+         * Description:
+         *   Sends a TASK or CANCEL message for the given subproblem. Any
+         *   thread may send. A failed send closes the connection, which its
+         *   own thread then notices.
+        **/
+        public void send(int type, Task task) {
+            try {
+                synchronized (out) {
+                    out.writeByte(type);
+                    out.writeInt(task.id);
+                    if (type == TASK)
+                        writePath(out, task.prefix);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+        
+        /**
+         * stop()
+         *
+         * Description:
+         *   Sends the STOP message, once, from whichever thread gets there
+         *   first: the coordinator, or the connection's own thread if it is
+         *   done before.
+        **/
+        public void stop() {
+            try {
+                synchronized (out) {
+                    if (!stopped) {
+                        stopped = true;
+                        out.writeByte(STOP);
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+        
+        /**
+         * close()
+         *
+         * Description:
+         *   Closes the connection.
+        **/
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        }
+    }
+    
+    /**
+     * countPaths() (from Solver)
+     *
+     * Description:
+     *   Counts the paths on this machine: only the search for one path is
+     *   split between the workers.
+    **/
+    @Override
+    public long countPaths() {
+        return board.countPaths();
+    }
+    
+    /**
+     * setPathListener() (from Solver)
+    **/
+    @Override
+    public void setPathListener(PathListener listener) {
+        board.setPathListener(listener);
+    }
+    
+    /**
+     * getState() (from Solver)
+    **/
+    @Override
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * isTimedOut() (from Solver)
+    **/
+    @Override
+    public boolean isTimedOut() {
+        return board.isTimedOut();
+    }
+    
+    /**
+     * getStatistics() (from Solver)
+     *
+     * Description:
+     *   Returns the counters of the search, with those of each worker
+     *   under its address.
+    **/
+    @Override
+    public Statistics getStatistics() {
+        return board.getStatistics();
+    }
+    
+    /**
+     * getPrecheck() (from Solver)
+    **/
+    @Override
+    public Precheck getPrecheck() {
+        return board.getPrecheck();
+    }
+    
+    /**
+     * getPathCells() (from Solver)
+    **/
+    @Override
+    public int[] getPathCells() {
+        return board.getPathCells();
+    }
+    
+    /**
+     * pathToString() (from Solver)
+    **/
+    @Override
+    public String pathToString() {
+        return board.pathToString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DeadEndTable class that remembers board states (used squares plus current
+ * location) from which no path can be completed, so the search does not
+ * explore them again when it reaches them through a different path. States
+ * are identified by Zobrist keys and stored in a fixed size table of small
+ * buckets that evicts with the CLOCK (second chance) policy. The table is
+ * shared by all workers and is safe to use from several threads.
+**/
+class DeadEndTable {
+    /* number of slots in each bucket */
+    protected static final int WAYS = 4;
+    /* low bit of each slot, set when the entry was recently used */
+    protected static final long REFERENCED = 1L;
+    /* slots holding the keys (0 is an empty slot) */
+    protected final AtomicLongArray slots;
+    /* mask applied to a key to pick its bucket */
+    protected final int buckets;
+    /* random keys of each square being used, and of being the location */
+    protected final long[] usedKeys, headKeys;
+    
+    /**
+     * Constructor that creates a table for a board with the given number of
+     * squares, using at most the given number of bytes for its slots.
+    **/
+    public DeadEndTable(int cells, long bytes) {
+        long size = Long.highestOneBit(Math.max(bytes / 8, WAYS));
+        size = Math.min(size, 1 << 30);
+        slots = new AtomicLongArray((int) size);
+        buckets = (int) (size / WAYS) - 1;
+        
+        Random random = new Random();
+        usedKeys = new long[cells];
+        headKeys = new long[cells];
+        for (int c = 0; c < cells; c++) {
+            usedKeys[c] = random.nextLong();
+            headKeys[c] = random.nextLong();
+        }
+    }
+    
+    /**
+     * usedKey()
+     *
+     * Description:
+     *   Returns the key to XOR in/out when square c is used/freed.
+    **/
+    public long usedKey(int c) {
+        return usedKeys[c];
+    }
+    
+    /**
+     * key()
+     *
+     * Description:
+     *   Returns the key of a state given the XOR of its used square keys and
+     *   the current location.
+    **/
+    public long key(long hash, int c) {
+        return hash ^ headKeys[c];
+    }
+    
+    /**
+     * tag()
+     *
+     * Description:
+     *   Returns the value stored for a key, which leaves the low bit free
+     *   for the CLOCK reference bit and is never 0.
+    **/
+    protected static long tag(long key) {
+        key &= ~REFERENCED;
+        return (key == 0)? 2 : key;
+    }
+    
+    /**
+     * bucket()
+     *
+     * Description:
+     *   Returns the index of the first slot of the key's bucket.
+    **/
+    protected int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & buckets) * WAYS;
+    }
+    
+    /**
+     * contains()
+     *
+     * Description:
+     *   Determines if the state with the given key is a known dead end, and
+     *   marks its entry as recently used.
+     *
+     * Return Value:
+     *   boolean - true if the state is a known dead end
+     *           - false otherwise
+    **/
+    public boolean contains(long key) {
+        long tag = tag(key);
+        int base = bucket(key);
+        for (int w = 0; w < WAYS; w++) {
+            long value = slots.get(base + w);
+            if ((value & ~REFERENCED) == tag) {
+                if ((value & REFERENCED) == 0)
+                    slots.compareAndSet(base + w, value, value | REFERENCED);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * add()
+     *
+     * Description:
+     *   Records the state with the given key as a dead end. Uses an empty
+     *   slot of the bucket when there is one, otherwise sweeps the bucket
+     *   clearing reference bits until it finds an entry to replace.
+    **/
+    public void add(long key) {
+        if (contains(key))
+            return;
+        
+        long tag = tag(key);
+        int base = bucket(key);
+        int hand = (int) (key >>> 62);
+        for (int n = 0; n < 2*WAYS; n++) {
+            int i = base + (hand + n) % WAYS;
+            long value = slots.get(i);
+            if (value != 0 && (value & REFERENCED) != 0) {
+                slots.compareAndSet(i, value, value & ~REFERENCED);
+            } else if (slots.compareAndSet(i, value, tag | REFERENCED)) {
+                return;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -6,7 +6,6 @@ package v4;
 
 import java.awt.Dimension;
 import java.util.Scanner;
-import java.io.FileReader;
 
 /**
  * Driver class to run the project
@@ -26,8 +25,54 @@ public class Driver {
             "\t-a, --args <rows> <columns>\tcreate a board with the" +
                 " specified dimensions\n" +
             "\t-f, --file <file>\t\timport board from file\n" +
+            "\t-i, --id <n>\t\t\ttake puzzle 'n' of an archive given to" +
+                " 'file' (default 0)\n" +
             "\t-t, --threads <tc>\t\tuse 'tc' many threads\n" +
-            "\t-h, --headless\t\t\trun without gui"
+            "\t-h, --headless\t\t\trun without gui\n" +
+            "\t-b, --bitboard\t\t\tsolve with the bitboard engine" +
+                " (headless only)\n" +
+            "\t-j, --fork-join\t\t\tsplit the search between the 'tc'" +
+                " threads with work stealing\n" +
+            "\t-l, --limit <ms>\t\tgive up after 'ms' milliseconds\n" +
+            "\t-c, --cache <mb>\t\tremember dead ends in an 'mb'" +
+                " megabyte table\n" +
+            "\t-r, --results <n>\t\tremember the answers to the last 'n'" +
+                " puzzles, rotated or reflected\n" +
+            "\t-k, --checkpoint <file>\t\tsave the progress of the search" +
+                " to 'file', and resume from it if it exists\n" +
+            "\t-K, --checkpoint-every <s>\tsave the progress every 's'" +
+                " seconds (default 60)\n" +
+            "\t-o, --order <heuristic>\t\torder moves by 'fixed'," +
+                " 'forced' or 'warnsdorff'\n" +
+            "\t-B, --batch <dir|glob>\t\tsolve every puzzle file in 'dir'" +
+                " (or matching 'glob', or in an archive), 'tc' at a time\n" +
+            "\t-m, --benchmark <dir|glob>\ttime the solver on the files in" +
+                " 'dir' (or matching 'glob') and generated boards\n" +
+            "\t-W, --convert <dir|glob>\twrite the puzzle files in 'dir'" +
+                " (or matching 'glob') in the binary format, with their" +
+                " paths if given a limit\n" +
+            "\t-A, --archive <file>\t\twrite the converted puzzles to the" +
+                " single archive 'file' instead\n" +
+            "\t-S, --serve <port>\t\tanswer puzzles posted to" +
+                " http://localhost:'port'/solve, 'tc' at a time\n" +
+            "\t-D, --coordinate <port>\t\tsplit the search between the" +
+                " workers connecting to 'port'\n" +
+            "\t-w, --worker <host:port>\tsearch subproblems for the" +
+                " coordinator at 'host:port', 'tc' at a time\n" +
+            "\t-s, --stats\t\t\tprint search counters (headless) and" +
+                " expose them with JMX\n" +
+            "\t-n, --count\t\t\tcount every path instead of finding" +
+                " one (headless)\n" +
+            "\t-e, --enumerate\t\t\tprint every path while counting" +
+                " them (headless)\n" +
+            "\t-P, --no-profile\t\tsearch narrow boards instead of using" +
+                " the profile engine\n" +
+            "\t-E, --end <y> <x>\t\tthe path has to end on square" +
+                " (y, x)\n" +
+            "\t-C, --cycle\t\t\tthe path has to end next to the start" +
+                " (Hamiltonian cycle)\n" +
+            "\t-d, --bidirectional\t\tgrow the path from both ends when" +
+                " it has to end on a given square"
         );
     }
     
@@ -43,14 +88,21 @@ public class Driver {
      *   args - Array of strings to be parsed into height and width dimensions
     **/
     public static void main(String[] args) {
-        int v1 = -1, v2 = -1, numThreads = 1;
-        long startTime, endTime;
+        int v1 = -1, v2 = -1;
         boolean headless = false;
-        boolean[][] board = null;
+        Options options = new Options();
+        Puzzle puzzle = null;
         Dimension dimension = null;
         Scanner scanner;
-        String t, f, string;
+        String file = null, archive = null;
+        String batch = null, benchmark = null, convert = null;
+        int id = 0;
+        int port = -1, coordinate = -1;
+        String workerHost = null;
+        int workerPort = -1;
         Runnable runnable;
+        TTY tty;
+        GUI gui;
         
         if (args.length == 0) {
             scanner = new Scanner(System.in);
@@ -76,38 +128,20 @@ public class Driver {
                         System.exit(-1);
                     }
                 } else if (args[i].matches("-(f|-file)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    file = args[++i];
+                } else if (args[i].matches("-(i|-id)")) {
                     if (args.length < i+2) {
                         usage();
                         System.exit(-1);
                     }
                     try {
-                        scanner = new Scanner(new FileReader(args[++i]));
-                        t = scanner.next();
-                        f = scanner.next();
-                        v1 = scanner.nextInt();
-                        v2 = scanner.nextInt();
-                        board = new boolean[v1][v2];
-                        for (int y = 0; y < v1; y++)
-                            for (int x = 0; x < v2; x++) {
-                                if (!scanner.hasNext()) {
-                                    System.err.println("Unexpected EOF");
-                                    System.exit(-1);
-                                }
-                                string = scanner.next();
-                                if (string.equals(t)) {
-                                    board[y][x] = true;
-                                } else if (string.equals(f)) {
-                                    board[y][x] = false;
-                                } else {
-                                    System.err.println("Invalid item in file");
-                                    System.exit(-1);
-                                }
-                            }
-                        v1 = scanner.nextInt();
-                        v2 = scanner.nextInt();
-                        scanner.close();
+                        id = Integer.parseInt(args[++i]);
                     } catch (Exception e) {
-                        e.printStackTrace();
+                        usage();
                         System.exit(-1);
                     }
                 } else if (args[i].matches("-(t|-threads)")) {
@@ -116,13 +150,176 @@ public class Driver {
                         System.exit(-1);
                     }
                     try {
-                        numThreads = Integer.parseInt(args[++i]);
+                        options.numThreads = Integer.parseInt(args[++i]);
                     } catch (Exception e) {
                         usage();
                         System.exit(-1);
                     }
                 } else if (args[i].matches("-(h|-headless)")) {
                     headless = true;
+                } else if (args[i].matches("-(b|-bitboard)")) {
+                    options.bitboard = true;
+                } else if (args[i].matches("-(j|-fork-join)")) {
+                    options.forkJoin = true;
+                } else if (args[i].matches("-(s|-stats)")) {
+                    options.stats = true;
+                } else if (args[i].matches("-(n|-count)")) {
+                    options.count = true;
+                } else if (args[i].matches("-(e|-enumerate)")) {
+                    options.enumerate = true;
+                } else if (args[i].matches("-(P|-no-profile)")) {
+                    options.profile = false;
+                } else if (args[i].matches("-(E|-end)")) {
+                    if (args.length < i+3) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        options.endY = Integer.parseInt(args[++i]);
+                        options.endX = Integer.parseInt(args[++i]);
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(C|-cycle)")) {
+                    options.cycle = true;
+                } else if (args[i].matches("-(d|-bidirectional)")) {
+                    options.bidirectional = true;
+                } else if (args[i].matches("-(l|-limit)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        options.limit = Long.parseLong(args[++i]);
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(c|-cache)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        options.cache = Long.parseLong(args[++i]) << 20;
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(r|-results)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        int capacity = Integer.parseInt(args[++i]);
+                        if (capacity <= 0)
+                            throw new IllegalArgumentException();
+                        options.results = new SolutionCache(capacity);
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(k|-checkpoint)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    options.checkpoint = args[++i];
+                } else if (args[i].matches("-(K|-checkpoint-every)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        options.checkpointMs =
+                            Long.parseLong(args[++i]) * 1000;
+                        if (options.checkpointMs <= 0)
+                            throw new IllegalArgumentException();
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(o|-order)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        options.heuristic =
+                            Heuristic.valueOf(args[++i].toUpperCase());
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                } else if (args[i].matches("-(B|-batch)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    batch = args[++i];
+                    headless = true;
+                } else if (args[i].matches("-(m|-benchmark)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    benchmark = args[++i];
+                    headless = true;
+                } else if (args[i].matches("-(W|-convert)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    convert = args[++i];
+                    headless = true;
+                } else if (args[i].matches("-(A|-archive)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    archive = args[++i];
+                } else if (args[i].matches("-(S|-serve)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        port = Integer.parseInt(args[++i]);
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    headless = true;
+                } else if (args[i].matches("-(D|-coordinate)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        coordinate = Integer.parseInt(args[++i]);
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    headless = true;
+                } else if (args[i].matches("-(w|-worker)")) {
+                    if (args.length < i+2) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    try {
+                        String address = args[++i];
+                        int colon = address.lastIndexOf(':');
+                        workerHost = address.substring(0, colon);
+                        workerPort = Integer.parseInt(
+                            address.substring(colon + 1));
+                    } catch (Exception e) {
+                        usage();
+                        System.exit(-1);
+                    }
+                    headless = true;
                 } else {
                     usage();
                     System.exit(-1);
@@ -130,18 +327,134 @@ public class Driver {
             }
         }
         
-        if (headless && board == null) {
+        if (file != null) {
+            try {
+                puzzle = (PuzzleArchive.isArchive(file))?
+                    PuzzleArchive.read(file, id) : Puzzle.read(file);
+            } catch (Exception e) {
+                System.err.println(e.getMessage());
+                System.exit(-1);
+            }
+        }
+        
+        if (archive != null && convert == null) {
+            System.err.println("Use of 'archive' without 'convert'");
+            System.exit(-1);
+        }
+        
+        if (convert != null && (options.endY >= 0 || options.cycle)) {
+            System.err.println("Use of 'end' or 'cycle' with 'convert'");
+            System.exit(-1);
+        }
+        
+        if (headless && puzzle == null && batch == null &&
+                benchmark == null && convert == null && port < 0 &&
+                workerHost == null) {
             System.err.println("Use of 'headless' without an input file");
             System.exit(-1);
         }
         
-        runnable = ((board != null)?
-            ((headless)?
-                new TTY(board, v1, v2, numThreads) :
-                new GUI(board, v1, v2, numThreads)
-            ) :
-            new GUI(dimension.height, dimension.width, numThreads)
-        );
+        if (coordinate >= 0 && puzzle == null) {
+            System.err.println("Use of 'coordinate' without an input file");
+            System.exit(-1);
+        }
+        
+        if (coordinate >= 0 && (options.count || options.bitboard ||
+                options.checkpoint != null)) {
+            System.err.println(
+                "Use of 'coordinate' with 'count', 'bitboard' or 'checkpoint'"
+            );
+            System.exit(-1);
+        }
+        
+        if (options.checkpoint != null && (batch != null ||
+                benchmark != null || convert != null || port >= 0)) {
+            System.err.println(
+                "Use of 'checkpoint' with 'batch', 'benchmark', 'convert' or" +
+                " 'serve'"
+            );
+            System.exit(-1);
+        }
+        
+        if (options.checkpoint != null && (options.bitboard ||
+                options.forkJoin || options.count || options.bidirectional)) {
+            System.err.println(
+                "Use of 'checkpoint' with 'bitboard', 'fork-join', 'count'" +
+                " or 'bidirectional'"
+            );
+            System.exit(-1);
+        }
+        
+        if (options.bitboard && !headless) {
+            System.err.println("Use of 'bitboard' without 'headless'");
+            System.exit(-1);
+        }
+        
+        if (options.bitboard && (options.endY >= 0 || options.cycle)) {
+            System.err.println("Use of 'end' or 'cycle' with 'bitboard'");
+            System.exit(-1);
+        }
+        
+        if (batch != null) {
+            try {
+                runnable = new Batch(batch, options);
+            } catch (Exception e) {
+                System.err.println("Invalid batch: " + e.getMessage());
+                System.exit(-1);
+                return;
+            }
+        } else if (port >= 0) {
+            try {
+                runnable = new Server(port, options);
+            } catch (Exception e) {
+                System.err.println("Invalid server: " + e.getMessage());
+                System.exit(-1);
+                return;
+            }
+        } else if (convert != null) {
+            try {
+                runnable = new Convert(convert, archive, options);
+            } catch (Exception e) {
+                System.err.println("Invalid conversion: " + e.getMessage());
+                System.exit(-1);
+                return;
+            }
+        } else if (workerHost != null) {
+            runnable = new Worker(workerHost, workerPort, options);
+        } else if (benchmark != null) {
+            try {
+                runnable = new Benchmark(benchmark, options);
+            } catch (Exception e) {
+                System.err.println("Invalid benchmark: " + e.getMessage());
+                System.exit(-1);
+                return;
+            }
+        } else if (coordinate >= 0) {
+            try {
+                tty = new TTY(new Coordinator(puzzle, coordinate, options));
+            } catch (Exception e) {
+                System.err.println("Invalid coordinator: " + e.getMessage());
+                System.exit(-1);
+                return;
+            }
+            tty.setShowStats(options.stats);
+            runnable = tty;
+        } else if (puzzle == null || !headless) {
+            gui = (puzzle == null)?
+                new GUI(dimension.height, dimension.width, options.numThreads) :
+                new GUI(puzzle.grid, puzzle.y, puzzle.x, options.numThreads);
+            if (puzzle == null)
+                options.configure(gui.board);
+            else
+                options.configure(gui.board, puzzle);
+            gui.setHeuristic(options.heuristic);
+            runnable = gui;
+        } else {
+            tty = new TTY(options.newSolver(puzzle, options.numThreads));
+            tty.setShowStats(options.stats);
+            tty.setCounting(options.count, options.enumerate);
+            runnable = tty;
+        }
         runnable.run();
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Font;
+import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
@@ -55,6 +56,8 @@ public class GUI extends JFrame implements Runnable {
     protected JButton replayButton, setOrderButton;
     /* boxes used to set the directional order used by the algorithm */
     protected JComboBox<Direction>[] boxes;
+    /* box used to set the move ordering strategy used by the algorithm */
+    protected JComboBox<Heuristic> heuristicBox;
     /* text area displaying messages about the current status of the program to
      * the user
      */
@@ -123,12 +126,14 @@ public class GUI extends JFrame implements Runnable {
             boxes[i] = new JComboBox<Direction>(Direction.values());
             boxes[i].setSelectedIndex(i);
         }
+        heuristicBox = new JComboBox<Heuristic>(Heuristic.values());
         
         JPanel south = new JPanel();
         south.setBackground(new Color(178, 102, 255));
         south.add(new JLabel("Order of moves:"));
         for (JComboBox box : boxes)
             south.add(box);
+        south.add(heuristicBox);
         south.add(setOrderButton);
         
         GridBagLayout gridbag = new GridBagLayout(); 
@@ -186,7 +191,7 @@ public class GUI extends JFrame implements Runnable {
         MouseListener mouse = new MouseHandler() {
             public void backtrack(){}
             public void whenFree() {
-                if (board.pathSize < board.path.size()-1) {
+                if (board.pathSize < board.pathLength-1) {
                     board.setSquare(Square.BLOCK);
                     board.pathSize++;
                 }
@@ -210,11 +215,11 @@ public class GUI extends JFrame implements Runnable {
         );
         canvas.getActionMap().put("continue", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                int size = board.path.size() - board.pathSize;
+                int size = board.pathLength - board.pathSize;
                 canvas.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
                     KeyStroke.getKeyStroke("ENTER"), "none"
                 );
-                board.path = board.path.subList(0, size);
+                board.pathLength = size;
                 board.pathSize = 0;
                 startSelection();
             }
@@ -313,10 +318,13 @@ public class GUI extends JFrame implements Runnable {
             timer = new Timer(250, new TimeHandler());
         } else {
             textArea.append("No Solution Exists.\n");
+            if (board.getPrecheck().getFailedTest() != null)
+                textArea.append(board.getPrecheck() + "\n");
             input.put(KeyStroke.getKeyStroke("ENTER"), "none");
             actions.put("pause", null);
             for (JComboBox box : boxes)
                 box.setEnabled(false);
+            heuristicBox.setEnabled(false);
         }
     }
     
@@ -354,8 +362,9 @@ public class GUI extends JFrame implements Runnable {
      * setOrder()
      *
      * Description:
-     *   Gets the values set for each JComboBox and sets the order used by the
-     *   algorithm if order given is acceptable.
+     *   Gets the values set for each JComboBox and sets the order and move
+     *   ordering strategy used by the algorithm if order given is
+     *   acceptable.
      *
      * Return Value:
      *   boolean - true if order change was succesful
@@ -366,7 +375,26 @@ public class GUI extends JFrame implements Runnable {
             new ArrayList<GameBoard.MoveAction>();
         for (JComboBox<Direction> box : boxes)
             list.add(getSelectedItem(box).action);
-        return board.setOrder(list);
+        if (!board.setOrder(list))
+            return false;
+        board.setMoveOrder(heuristicBox.getItemAt(
+            heuristicBox.getSelectedIndex()
+        ));
+        return true;
+    }
+    
+    /**
+     * setHeuristic()
+     *
+     * Description:
+     *   Selects the move ordering strategy shown in the heuristic box.
+     *
+     * Inputs:
+     *   heuristic - move ordering strategy to select
+    **/
+    protected void setHeuristic(Heuristic heuristic) {
+        heuristicBox.setSelectedItem(heuristic);
+        board.setMoveOrder(heuristic);
     }
     
     /**
@@ -387,9 +415,13 @@ public class GUI extends JFrame implements Runnable {
             canvas.getInputMap().put(KeyStroke.getKeyStroke("ESCAPE"), "exit");
             canvas.getActionMap().put("exit", new GameEndAction());
         } else {
-            textArea.append("No Solution Found.\n");
+            textArea.append(
+                (board.isTimedOut())?
+                    "Time Limit Reached.\n" : "No Solution Found.\n"
+            );
             for (JComboBox box : boxes)
                 box.setEnabled(true);
+            heuristicBox.setEnabled(true);
             setOrderButton.setEnabled(true);
         }
         return null;
@@ -443,8 +475,8 @@ public class GUI extends JFrame implements Runnable {
                 if (board.state == State.FINISHED &&
                         replayButton.isEnabled()) {
                     replayButton.setEnabled(false);
-                    for (int i = 0; i < board.path.size(); i++) {
-                        board.loc.setLocation(board.path.get(i));
+                    for (Point point : board.getPath()) {
+                        board.loc.setLocation(point);
                         board.setSquare(Square.FREE);
                     }
                     timer.start();
@@ -469,8 +501,8 @@ public class GUI extends JFrame implements Runnable {
     protected class TimeHandler implements ActionListener {
         protected int i;
         public void actionPerformed(ActionEvent e) {
-            if (i < board.path.size()) {
-                board.loc.setLocation(board.path.get(i));
+            if (i < board.pathLength) {
+                board.loc.setLocation(board.getPath().get(i));
                 board.setSquare(Square.USED);
                 i++;
             } else {
@@ -495,11 +527,12 @@ public class GUI extends JFrame implements Runnable {
             } else if (board.state == State.STOPPED) {
                 for (JComboBox box : boxes)
                     box.setEnabled(false);
+                heuristicBox.setEnabled(false);
                 setOrderButton.setEnabled(false);
                 textArea.setText("Calculating...\n");
                 new Thread(canvas).start();
             } else {
-                board.state = State.STOPPED;
+                board.stop();
             }
         }
     }
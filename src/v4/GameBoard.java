@@ -10,16 +10,31 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 import javax.swing.AbstractAction;
 
 /**
@@ -27,17 +42,109 @@ import javax.swing.AbstractAction;
  * board, as well as the entire algorithm for solving a puzzle
 **/
 public class GameBoard extends Board<Square, GameBoard.MoveAction>
-implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
+implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean>, Solver {
+    /* fewest free squares left for a fork/join search to split its moves */
+    protected static final int SPLIT_CELLS = 12;
+    /* most surplus queued tasks a fork/join worker may have to still split */
+    protected static final int SPLIT_SURPLUS = 2;
+    /* longest time (ms) submitTasks() blocks before checking for a 'stop' */
+    protected static final long STOP_CHECK_MS = 50;
+    /* number of nodes (power of two) searched between deadline checks */
+    protected static final int DEADLINE_NODES = 1024;
+    /* fewest free squares left for a state to be worth a dead end entry */
+    protected static final int DEAD_END_CELLS = 8;
+    /* stack size (bytes) of the search threads: the search recurses once per
+     * square of the path, so long boards need far more than the default
+     */
+    protected static final long STACK_SIZE = 256L << 20;
     /* keeps track of the current path length */
     protected int pathSize;
     /* stores the number of workers available to complete the algorithm */
     protected int numWorkers;
+    /* whether the workers use work stealing instead of a fixed frontier */
+    protected boolean forkJoin;
+    /* strategy deciding the order in which moves are tried */
+    protected MoveOrder order;
+    /* ordered moves of each depth of the search (allocated when reached) */
+    protected MoveAction[][] moves;
     /* keeps track of the current state of the algorithm */
-    protected State state;
+    protected volatile State state;
+    /* shared with all workers so one 'stop' or solution stops them all */
+    protected StopFlag stop;
+    /* milliseconds the search may run for (0 for no limit) */
+    protected long timeLimit;
+    /* nodes searched since the deadline was last checked */
+    protected int ticks;
+    /* bytes the dead end table may use (0 to search without one) */
+    protected long deadEndBytes;
+    /* table of known dead end states shared by all workers (may be null) */
+    protected DeadEndTable deadEnds;
+    /* XOR of the dead end table keys of all used squares on the path */
+    protected long hash;
+    /* counters of every thread working on the current search */
+    protected Statistics statistics;
+    /* counters of the thread running this board's search */
+    protected SearchStats stats;
+    /* whether each search registers its counters with JMX */
+    protected boolean exposeStatistics;
+    /* told about every path found while counting (may be null) */
+    protected PathListener listener;
+    /* square the path has to end on (null to end anywhere) */
+    protected Point end;
+    /* whether the path has to end next to the start, closing a cycle */
+    protected boolean cycle;
+    /* whether a search with a required end grows the path from both ends */
+    protected boolean bidirectional;
+    /* path grown back from the required end by a bidirectional search and
+     * its length (0 otherwise). Its last square is the other head, which is
+     * left 'FREE' and stored in 'end', so the end pruning covers both heads
+     */
+    protected int[] tailPath;
+    protected int tailSize;
+    /* structural checks made by the last isSolvable() call */
+    protected Precheck precheck;
     /* keeps track of the current location on the board */
     protected Point loc;
-    /* stores the path (an ordered list of points) */
-    protected List<Point> path;
+    /* stores the path (ordered linear indices y * width + x, -1 past its
+     * end) so moving does not allocate or copy any objects
+     */
+    protected int[] path;
+    /* number of squares a complete path covers */
+    protected int pathLength;
+    /* number of free neighbors of every square, kept up to date by
+     * setSquare() so pruning does not need to rescan the grid
+     */
+    protected int[][] degree;
+    /* number of free squares that have exactly one free neighbor */
+    protected int singles;
+    /* number of those squares that are black ((y + x) % 2 == 0) */
+    protected int blackSingles;
+    /* number of free black squares minus free white squares, kept up to
+     * date by setSquare() so the color balance is checked at every node
+     */
+    protected int surplus;
+    /* scratch array of blob labels used by blobCount() */
+    protected int[] labels;
+    /* square every symmetry of the board (rotation or reflection keeping
+     * its blocks, path and end in place) moves each square to, and for
+     * each square the bit mask of the symmetries leaving it in place (null
+     * if the board has none)
+     */
+    protected int[][] symmetries;
+    protected int[] fixedBy;
+    /* bit mask of the symmetries leaving the first n squares of the path in
+     * place, for every path length n, kept up to date by forward()
+     */
+    protected int[] symmetric;
+    /* file submitTasks() saves its progress to and resumes from (null for
+     * none), and the milliseconds between saves
+     */
+    protected String checkpoint;
+    protected long checkpointMs;
+    /* path a resumed search skips ahead to (see resumeFrom()), null once it
+     * is reached or left
+     */
+    protected int[] resume;
     
     /**
      * Constructor that initializes the board based on the number of rows and
@@ -111,24 +218,56 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
                     grid[i][j] = Square.FREE;
                 }
         
-        path = path.subList(0, pathSize);
+        pathLength = pathSize;
         loc.setLocation(x, y);
         pathSize = 0;
-        path.get(pathSize++).setLocation(loc);
+        path[pathSize++] = cell(loc);
         grid[loc.y][loc.x] = Square.USED;
+        countDegrees();
     }
     
     public GameBoard(GameBoard old) {
         initialize(old.bounds.height, old.bounds.width, old.numWorkers);
+        forkJoin = old.forkJoin;
+        order = old.order;
+        List<MoveAction> list = new ArrayList<MoveAction>(actions.size());
+        for (MoveAction action : old.actions(old.grid))
+            for (MoveAction mine : actions)
+                if (mine.getClass() == action.getClass())
+                    list.add(mine);
+        setOrder(list);
+        stop = old.stop;
+        timeLimit = old.timeLimit;
+        deadEndBytes = old.deadEndBytes;
+        deadEnds = old.deadEnds;
+        hash = old.hash;
+        statistics = old.statistics;
+        stats = old.stats;
+        listener = old.listener;
+        end = (old.end == null)? null : new Point(old.end);
+        cycle = old.cycle;
+        bidirectional = old.bidirectional;
+        tailSize = old.tailSize;
+        if (old.tailPath != null)
+            tailPath = old.tailPath.clone();
         for (int i = 0; i < bounds.height; i++)
             System.arraycopy(old.grid[i], 0, grid[i], 0, bounds.width);
         
         pathSize = old.pathSize;
-        path = path.subList(0, old.path.size());
-        for (int i = 0; i < pathSize; i++)
-            path.get(i).setLocation(old.path.get(i));
+        pathLength = old.pathLength;
+        System.arraycopy(old.path, 0, path, 0, pathSize);
         
         loc.setLocation(old.loc);
+        
+        for (int i = 0; i < bounds.height; i++)
+            System.arraycopy(old.degree[i], 0, degree[i], 0, bounds.width);
+        singles = old.singles;
+        blackSingles = old.blackSingles;
+        surplus = old.surplus;
+        symmetries = old.symmetries;
+        fixedBy = old.fixedBy;
+        if (old.symmetric != null)
+            symmetric = old.symmetric.clone();
     }
     
     /**
@@ -145,12 +284,20 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         pathSize = rows * columns;
         numWorkers = workerCount;
         state = State.STOPPED;
+        stop = new StopFlag();
+        statistics = new Statistics();
+        stats = statistics.stripe();
         bounds = new Dimension(columns, rows);
         loc = new Point(0, 0);
         
         grid = new Square[rows][columns];
+        degree = new int[rows][columns];
+        labels = new int[rows * columns];
+        moves = new MoveAction[rows * columns + 1][];
+        order = Heuristic.FIXED;
         actions = new ArrayList<MoveAction>(4);
-        path = new ArrayList<Point>(pathSize);
+        path = new int[pathSize];
+        pathLength = pathSize;
         
         actions.add(new MoveLeftAction());
         actions.add(new MoveRightAction());
@@ -170,17 +317,59 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         for (int i = 0; i < bounds.height; i++)
             for (int j = 0; j < bounds.width; j++)
                 grid[i][j] = Square.FREE;
+        countDegrees();
     }
     
     /**
      * initPath()
      *
      * Description:
-     *   Initializes the path by setting every coordinate to (-1, -1).
+     *   Initializes the path by setting every index to -1.
     **/
     protected void initPath() {
-        for (int i = 0; i < pathSize; i++)
-            path.add(new Point(-1, -1));
+        Arrays.fill(path, -1);
+    }
+    
+    /**
+     * cell()
+     *
+     * Description:
+     *   Returns the linear index (y * width + x) of a point.
+    **/
+    protected int cell(Point point) {
+        return point.y * bounds.width + point.x;
+    }
+    
+    /**
+     * locate()
+     *
+     * Description:
+     *   Moves the current location to the square with the given linear index.
+    **/
+    protected void locate(int c) {
+        loc.setLocation(c % bounds.width, c / bounds.width);
+    }
+    
+    /**
+     * getPath()
+     *
+     * Description:
+     *   Returns a read-only view of the complete path as points, for the
+     *   interfaces. Each call to get() creates a new point.
+    **/
+    public List<Point> getPath() {
+        return new AbstractList<Point>() {
+            public Point get(int i) {
+                if (i < 0 || i >= pathLength)
+                    throw new IndexOutOfBoundsException();
+                return new Point(
+                    path[i] % bounds.width, path[i] / bounds.width
+                );
+            }
+            public int size() {
+                return pathLength;
+            }
+        };
     }
     
     /**
@@ -191,8 +380,12 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      *   and marking the square as 'USED'.
     **/
     protected void forward() {
-        path.get(pathSize++).setLocation(loc);
+        path[pathSize++] = cell(loc);
+        if (fixedBy != null)
+            symmetric[pathSize] = symmetric[pathSize-1] & fixedBy[cell(loc)];
         setSquare(Square.USED);
+        if (deadEnds != null)
+            hash ^= deadEnds.usedKey(loc.y * bounds.width + loc.x);
     }
     
     /**
@@ -203,21 +396,138 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      *   path and marking the square as 'FREE'.
     **/
     protected void backward() {
-        path.get(--pathSize).setLocation(-1, -1);
+        path[--pathSize] = -1;
         setSquare(Square.FREE);
+        if (deadEnds != null)
+            hash ^= deadEnds.usedKey(loc.y * bounds.width + loc.x);
     }
     
     /**
      * setSquare()
      *
      * Description:
-     *   Updates the state of the square at the current location.
+     *   Updates the state of the square at the current location, and the
+     *   free neighbor counts around it when it becomes free or not free.
      *
      * Inputs:
      *   square - the enum value to set for the current square
     **/
     protected void setSquare(Square square) {
+        boolean wasFree = grid[loc.y][loc.x] == Square.FREE;
         grid[loc.y][loc.x] = square;
+        if (wasFree != (square == Square.FREE))
+            updateDegrees(loc.y, loc.x, wasFree? -1 : 1);
+    }
+    
+    /**
+     * countDegrees()
+     *
+     * Description:
+     *   Recounts the number of free neighbors of every square, the number
+     *   of free squares with only one free neighbor and the color balance of
+     *   the free squares.
+    **/
+    protected void countDegrees() {
+        singles = 0;
+        blackSingles = 0;
+        surplus = 0;
+        for (int i = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++) {
+                degree[i][j] = 0;
+                if (isFree(i, j-1))
+                    degree[i][j]++;
+                if (isFree(i, j+1))
+                    degree[i][j]++;
+                if (isFree(i-1, j))
+                    degree[i][j]++;
+                if (isFree(i+1, j))
+                    degree[i][j]++;
+                if (grid[i][j] != Square.FREE)
+                    continue;
+                surplus += isBlack(i, j)? 1 : -1;
+                if (degree[i][j] == 1)
+                    countSingle(i, j, 1);
+            }
+    }
+    
+    /**
+     * updateDegrees()
+     *
+     * Description:
+     *   Adjusts the free neighbor counts around the square at (j, i) after it
+     *   was freed (delta = 1) or taken (delta = -1).
+     *
+     * Inputs:
+     *   i - y-coordinate
+     *   j - x-coordinate
+     *   delta - change to apply to the neighbor counts
+    **/
+    protected void updateDegrees(int i, int j, int delta) {
+        surplus += isBlack(i, j)? delta : -delta;
+        if (degree[i][j] == 1)
+            countSingle(i, j, delta);
+        if (j > 0)
+            updateDegree(i, j-1, delta);
+        if (j < bounds.width-1)
+            updateDegree(i, j+1, delta);
+        if (i > 0)
+            updateDegree(i-1, j, delta);
+        if (i < bounds.height-1)
+            updateDegree(i+1, j, delta);
+    }
+    
+    /**
+     * updateDegree()
+     *
+     * Description:
+     *   Adjusts the free neighbor count of the square at (j, i) and keeps the
+     *   count of free squares with only one free neighbor in sync.
+    **/
+    protected void updateDegree(int i, int j, int delta) {
+        if (grid[i][j] != Square.FREE) {
+            degree[i][j] += delta;
+            return;
+        }
+        if (degree[i][j] == 1)
+            countSingle(i, j, -1);
+        degree[i][j] += delta;
+        if (degree[i][j] == 1)
+            countSingle(i, j, 1);
+    }
+    
+    /**
+     * countSingle()
+     *
+     * Description:
+     *   Adds 'delta' to the number of free squares with one free neighbor,
+     *   and to the black ones if the square at (j, i) is black.
+    **/
+    protected void countSingle(int i, int j, int delta) {
+        singles += delta;
+        if (isBlack(i, j))
+            blackSingles += delta;
+    }
+    
+    /**
+     * isBlack()
+     *
+     * Description:
+     *   Returns the checkerboard color of the square at (j, i): true for
+     *   black, which includes the top left corner.
+    **/
+    protected static boolean isBlack(int i, int j) {
+        return (i + j) % 2 == 0;
+    }
+    
+    /**
+     * isFree()
+     *
+     * Description:
+     *   Determines whether (j, i) is on the board and 'FREE'.
+    **/
+    protected boolean isFree(int i, int j) {
+        return i >= 0 && j >= 0 && i < bounds.height && j < bounds.width &&
+            grid[i][j] == Square.FREE;
     }
     
     /**
@@ -264,299 +574,1283 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
     }
     
     /**
-     * pointToString()
+     * setForkJoin()
      *
      * Description:
-     *   Returns a string to represent the given point.
+     *   Chooses between the fixed frontier split of submitTasks() and the
+     *   work stealing search of forkTasks().
      *
      * Inputs:
-     *   point - coordinate to form as text
+     *   value - true to use work stealing
+    **/
+    public void setForkJoin(boolean value) {
+        forkJoin = value;
+    }
+    
+    /**
+     * setMoveOrder()
      *
-     * Return Value:
-     *   String - text-formatted point
+     * Description:
+     *   Sets the strategy used to order the moves tried at each square.
+     *
+     * Inputs:
+     *   value - move ordering strategy
     **/
-    public String pointToString(Point point) {
-        return String.format("[%d, %d]", point.y, point.x);
+    public void setMoveOrder(MoveOrder value) {
+        order = value;
     }
     
     /**
-     * pathToString()
+     * orderedMoves()
      *
      * Description:
-     *   Returns a string to represent the current path.
+     *   Returns the buffer of the current depth holding the possible moves
+     *   from the current location, ordered by the move ordering strategy.
      *
      * Return Value:
-     *   String - text-formatted path
+     *   MoveAction[] - buffer holding the moves
     **/
-    public String pathToString() {
-        String text = "";
-        for (Point point : path)
-            text += String.format("%s\n", pointToString(point));
-        return text;
+    protected MoveAction[] orderedMoves() {
+        int depth = pathSize + tailSize;
+        if (moves[depth] == null)
+            moves[depth] = new MoveAction[actions.size()];
+        return moves[depth];
     }
     
     /**
-     * isOrderOk()
+     * setTimeLimit()
      *
      * Description:
-     *   Determines if the ordered list of directions is acceptable by checking
-     *   if it contains any duplicates.
+     *   Sets how long the next search may run before it gives up.
      *
      * Inputs:
-     *   list - ordered list of directions
-     *
-     * Return Value:
-     *   boolean - true if order is acceptable
-     *           - false if order is unacceptable
+     *   millis - time limit in milliseconds (0 for no limit)
     **/
-    protected boolean isOrderOk(List<MoveAction> list) {
-        return new HashSet<MoveAction>(list).size() == actions.size();
+    public void setTimeLimit(long millis) {
+        timeLimit = millis;
     }
     
     /**
-     * setOrder()
+     * setDeadEndCache()
      *
      * Description:
-     *   Checks if ordered list is acceptable and updates the order for the
-     *   algorithm.
+     *   Sets how much memory the next search may use to remember dead end
+     *   states.
      *
      * Inputs:
-     *   list - ordered list of directions
-     *
-     * Return Value:
-     *   boolean - true if order was updated
-     *           - false if order was not updated
+     *   bytes - size of the table in bytes (0 to disable it)
     **/
-    protected boolean setOrder(List<MoveAction> list) {
-        if (!isOrderOk(list))
-            return false;
-        int size = actions.size();
-        for (int i = 0; i < size; i++)
-            actions(grid).set(i, list.get(i));
-        return true;
+    public void setDeadEndCache(long bytes) {
+        deadEndBytes = bytes;
     }
     
     /**
-     * gridToIntVals()
+     * setCheckpoint()
      *
      * Description:
-     *   Converts the Square grid to a grid of integers in order to perform
-     *   calculations.
+     *   Sets the file the next search split between workers saves its
+     *   progress to, and resumes from if it exists. The file is removed
+     *   once the search is over, and kept if it was stopped or timed out.
      *
-     * Return Value:
-     *   int[][] - 2D array of integer values representing state of the grid
+     * Inputs:
+     *   file - path of the checkpoint (null to save nothing)
+     *   millis - time between saves in milliseconds
     **/
-    protected int[][] gridToIntVals() {
-        int[][] vals = new int[bounds.height][bounds.width];
-        for (int i = 0; i < bounds.height; i++)
-            for (int j = 0; j < bounds.width; j++)
-                vals [i][j] = grid[i][j].STATUS;
-        return vals;
+    public void setCheckpoint(String file, long millis) {
+        checkpoint = file;
+        checkpointMs = millis;
     }
     
     /**
-     * isSolvable()
+     * hashPath()
      *
      * Description:
-     *   Checks whether the current board is solvable.
-     *
-     * Return Value:
-     *   boolean - true if puzzle is solvable
-     *           - false if puzzle is unsolvable
+     *   Computes the XOR of the dead end table keys of the squares on the
+     *   current path, which forward()/backward() then keep up to date.
     **/
-    protected boolean isSolvable() {
-        return isDominoTileable() && isGoodMove();
+    protected long hashPath() {
+        long value = 0;
+        for (int i = 0; i < pathSize; i++)
+            value ^= deadEnds.usedKey(path[i]);
+        return value;
     }
     
     /**
-     * call() (from Callable)
+     * isDeadEnd()
      *
      * Description:
-     *   Starts the algorithm in search for a solution. Stops when solution is
-     *   found or 'stop' event is issued.
+     *   Determines whether the current state is a known dead end.
     **/
-    @Override
-    public Boolean call() {
-        state = State.RUNNING;
-        
-        if (submitTasks()) {
-            state = State.FINISHED;
+    protected boolean isDeadEnd() {
+        if (deadEnds != null && pathLength - pathSize >= DEAD_END_CELLS &&
+                deadEnds.contains(stateKey())) {
+            stats.deadEndHits++;
             return true;
         }
-        
-        state = State.STOPPED;
         return false;
     }
     
     /**
-     * submitTasks()
+     * markDeadEnd()
      *
      * Description:
-     *   Creates worker threads to solve independent subproblems by duplicating
-     *   the current configuration of the board and initializing the paths to
-     *   each worker as an extension of the current path by applying different
-     *   actions. Shuts down the ExecutorService when a solution is found, the
-     *   algorithm terminates, or the search was stopped.
+     *   Records the current state as a dead end after all of its moves
+     *   failed, unless the search was stopped (the moves may not have been
+     *   fully explored).
+    **/
+    protected void markDeadEnd() {
+        if (deadEnds != null && pathLength - pathSize >= DEAD_END_CELLS &&
+                !stop.isStopped())
+            deadEnds.add(stateKey());
+    }
+    
+    /**
+     * stateKey()
      *
-     * Return Value:
-     *   boolean - true solution was found
-     *           - false if no solution was found or process was stopped
+     * Description:
+     *   Returns the dead end table key of the current state: the used
+     *   squares and the current location, plus the other head during a
+     *   bidirectional search (where the end is not fixed).
     **/
-    public boolean submitTasks() {
-        int size;
-        boolean ret = false;
-        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
-        Queue<WorkerBoard> queue = new LinkedList<WorkerBoard>();
-        Queue<Future<Boolean>> futures = new LinkedList<Future<Boolean>>();
-        Future<Boolean> future;
-        WorkerBoard board;
-        
-        queue.add(new WorkerBoard(this));
-        while ((size = queue.size()) < numWorkers) {
-            if (size == 0) {
-                queue.add(new WorkerBoard(this));
-                size = 1;
-                break;
-            }
-            
-            for (int i = 0; i < size; i++) {
-                board = queue.poll();
-                for (GameBoard.MoveAction action : board.actions(board.grid)) {
-                    if (action.forwardCondition()) {
-                        action.updatePosition();
-                        board.forward();
-                        queue.add(new WorkerBoard(board));
-                        board.backward();
-                        action.undoPosition();
-                    }
-                }
-            }
+    protected long stateKey() {
+        long key = deadEnds.key(hash, loc.y * bounds.width + loc.x);
+        return (tailSize > 0)? deadEnds.key(key, cell(end)) : key;
+    }
+    
+    /**
+     * setEnd()
+     *
+     * Description:
+     *   Sets the square the path has to end on.
+     *
+     * Inputs:
+     *   y, x - coordinates of the square (negative to end anywhere)
+    **/
+    public void setEnd(int y, int x) {
+        if (y < 0 || x < 0) {
+            end = null;
+            return;
         }
         
-        for (WorkerBoard task : queue)
-            futures.add(executor.submit(task));
-        
-        poll:
-        while ((size = futures.size()) > 0 && state != State.STOPPED) {
-            for (int i = 0; i < size; i++) {
-                future = futures.poll();
-                board = queue.poll();
-                if (future.isDone()) {
-                    try {
-                        if (future.get()) {
-                            while (pathSize < board.pathSize) {
-                                loc.setLocation(board.path.get(pathSize));
-                                forward();
-                            }
-                            ret = true;
-                            break poll;
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Future Error");
-                        break poll;
-                    }
-                } else {
-                    futures.add(future);
-                    queue.add(board);
-                }
-            }
+        if (y >= bounds.height || x >= bounds.width) {
+            System.err.println("Out-Of-Bounds End Point.");
+            throw new IllegalArgumentException();
         }
         
-        try {
-            executor.shutdown();
-            while (!queue.isEmpty()) {
-                board = queue.poll();
-                futures.poll();
-                board.state = State.STOPPED;
-            }
-            executor.awaitTermination(60, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            System.err.println("Executor Shutdown Error");
+        if (grid[y][x] == Square.BLOCK) {
+            System.err.println("Invalid End Point.");
+            throw new IllegalArgumentException();
         }
-        return ret;
+        end = new Point(x, y);
     }
     
     /**
-     * isGoal() (from StateSpaceSearch)
+     * setCycle()
      *
      * Description:
-     *   Determines whether the goal (a Hamiltonian Path from the starting
-     *   location) has been achieved.
+     *   Sets whether the path has to end next to the start, so that it can
+     *   be closed into a Hamiltonian cycle.
+    **/
+    public void setCycle(boolean value) {
+        cycle = value;
+    }
+    
+    /**
+     * setBidirectional()
      *
-     * Return Value:
-     *   boolean - true if goal has been reahed
-     *           - false if goal is not yet reached
+     * Description:
+     *   Sets whether a search with a required end grows the path from both
+     *   ends in turn (see findSolutionBothWays()).
     **/
-    @Override
-    public boolean isGoal() {
-        return pathSize == path.size();
+    public void setBidirectional(boolean value) {
+        bidirectional = value;
     }
     
     /**
-     * actions() (from StateSpaceSearch)
+     * isNextToStart()
      *
      * Description:
-     *   Returns a list form of the possible actions to take.
+     *   Determines whether square (j, i) is a neighbor of the start.
+    **/
+    protected boolean isNextToStart(int i, int j) {
+        int y = path[0] / bounds.width, x = path[0] % bounds.width;
+        return Math.abs(i - y) + Math.abs(j - x) == 1;
+    }
+    
+    /**
+     * setStatistics()
      *
-     * Inpputs:
-     *   state - grid/current state of the board
+     * Description:
+     *   Sets whether each search registers its counters with JMX.
+    **/
+    public void setStatistics(boolean value) {
+        exposeStatistics = value;
+    }
+    
+    /**
+     * getStatistics() (from Solver)
      *
-     * Return Value:
-     *   List - list of possible actions
+     * Description:
+     *   Returns the counters of the last search.
     **/
     @Override
-    public List<MoveAction> actions(Square[][] state) {
-        return (List<MoveAction>) actions;
+    public Statistics getStatistics() {
+        return statistics;
     }
     
     /**
-     * findSolution()
+     * getPrecheck() (from Solver)
      *
      * Description:
-     *   Recursive solving algorithm. Checks if the goal has been reached or if
-     *   a 'stop' event was trigerred. Moves to all possible directions (if
-     *   possible) in order.
-     *
-     * Return Value:
-     *   boolean - true if solution was found
-     *           - false if no solution was found or if process was stopped
+     *   Returns the structural checks made by the last isSolvable() call.
     **/
     @Override
-    public boolean findSolution() {
-        if (isGoal())
-            return true;
-        
-        if (state == State.STOPPED)
-            return false;
-        
-        for (MoveAction action : actions(grid))
-            if (action.forwardCondition()) {
-                action.updatePosition();
-                forward();
-                if (isGoodMove() && findSolution())
-                    return true;
-                backward();
-                action.undoPosition();
-            }
-        
-        return false;
+    public Precheck getPrecheck() {
+        return precheck;
     }
     
     /**
-     * isDominoTileable()
+     * newPrecheck()
      *
      * Description:
-     *   Determines if the board can be tiled by dominoes, which helps
-     *   determine if a solution exists.
-     *
-     * Return Value:
-     *   boolean - true if the board is domino tileable
-     *           - false if the board is not domino tileable
+     *   Builds the structural checks of the free squares and the current
+     *   location. A cycle is only checked as such before the first move,
+     *   since after it the path no longer ends next to the location.
     **/
-    protected boolean isDominoTileable() {
-        int white = 0;
-        int black = 0;
-        boolean flag = true;
+    protected Precheck newPrecheck() {
+        boolean[][] taken = new boolean[bounds.height][bounds.width];
+        for (int i = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++)
+                taken[i][j] = grid[i][j] != Square.FREE;
+        
+        Precheck check = new Precheck(taken, loc.y, loc.x);
+        if (end != null)
+            check.setEnd(end.y, end.x);
+        check.setCycle(cycle && pathSize == 1);
+        return check;
+    }
+    
+    /**
+     * countNode()
+     *
+     * Description:
+     *   Counts a call to findSolution() and the depth it reached.
+    **/
+    protected void countNode() {
+        stats.nodes++;
+        if (pathSize + tailSize > stats.maxDepth)
+            stats.maxDepth = pathSize + tailSize;
+    }
+    
+    /**
+     * stop()
+     *
+     * Description:
+     *   Stops the current search and all of its workers.
+    **/
+    public void stop() {
+        stop.stop();
+        state = State.STOPPED;
+    }
+    
+    /**
+     * isStopped()
+     *
+     * Description:
+     *   Determines whether the search should stop. Reads the shared flag at
+     *   every call and only looks at the clock every DEADLINE_NODES calls.
+     *
+     * Return Value:
+     *   boolean - true if the search should stop
+     *           - false if the search may continue
+    **/
+    protected boolean isStopped() {
+        if (stop.isStopped())
+            return true;
+        if ((++ticks & (DEADLINE_NODES-1)) != 0)
+            return false;
+        saveProgress();
+        return stop.checkDeadline();
+    }
+    
+    /**
+     * saveProgress()
+     *
+     * Description:
+     *   Called by isStopped() every DEADLINE_NODES nodes, when the path is
+     *   that of the node being entered. Does nothing here (see WorkerBoard).
+    **/
+    protected void saveProgress() {}
+    
+    /**
+     * isTimedOut() (from Solver)
+     *
+     * Description:
+     *   Returns whether the last search gave up because of its time limit.
+    **/
+    @Override
+    public boolean isTimedOut() {
+        return stop.isExpired();
+    }
+    
+    /**
+     * getState() (from Solver)
+     *
+     * Description:
+     *   Returns the current state of the algorithm.
+    **/
+    @Override
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * pointToString()
+     *
+     * Description:
+     *   Returns a string to represent the given point.
+     *
+     * Inputs:
+     *   point - coordinate to form as text
+     *
+     * Return Value:
+     *   String - text-formatted point
+    **/
+    public String pointToString(Point point) {
+        return String.format("[%d, %d]", point.y, point.x);
+    }
+    
+    /**
+     * getPathCells() (from Solver)
+     *
+     * Description:
+     *   Returns the squares of the current path as linear indices.
+    **/
+    @Override
+    public int[] getPathCells() {
+        return Arrays.copyOf(path, pathLength);
+    }
+    
+    /**
+     * pathToString() (from Solver)
+     *
+     * Description:
+     *   Returns a string to represent the current path.
+     *
+     * Return Value:
+     *   String - text-formatted path
+    **/
+    @Override
+    public String pathToString() {
+        StringBuilder builder = new StringBuilder(pathLength * 10);
+        for (int i = 0; i < pathLength; i++)
+            builder.append('[').append(path[i] / bounds.width).append(", ")
+                .append(path[i] % bounds.width).append("]\n");
+        return builder.toString();
+    }
+    
+    /**
+     * isOrderOk()
+     *
+     * Description:
+     *   Determines if the ordered list of directions is acceptable by checking
+     *   if it contains any duplicates.
+     *
+     * Inputs:
+     *   list - ordered list of directions
+     *
+     * Return Value:
+     *   boolean - true if order is acceptable
+     *           - false if order is unacceptable
+    **/
+    protected boolean isOrderOk(List<MoveAction> list) {
+        return new HashSet<MoveAction>(list).size() == actions.size();
+    }
+    
+    /**
+     * setOrder()
+     *
+     * Description:
+     *   Checks if ordered list is acceptable and updates the order for the
+     *   algorithm.
+     *
+     * Inputs:
+     *   list - ordered list of directions
+     *
+     * Return Value:
+     *   boolean - true if order was updated
+     *           - false if order was not updated
+    **/
+    protected boolean setOrder(List<MoveAction> list) {
+        if (!isOrderOk(list))
+            return false;
+        int size = actions.size();
+        for (int i = 0; i < size; i++)
+            actions(grid).set(i, list.get(i));
+        return true;
+    }
+    
+    /**
+     * isSolvable()
+     *
+     * Description:
+     *   Checks whether the current board is solvable, starting with the
+     *   structural checks (see Precheck).
+     *
+     * Return Value:
+     *   boolean - true if puzzle is solvable
+     *           - false if puzzle is unsolvable
+    **/
+    @Override
+    public boolean isSolvable() {
+        precheck = newPrecheck();
+        if (!precheck.run())
+            return false;
+        if (!isDominoTileable()) {
+            stats.parityPrunes++;
+            return false;
+        }
+        return isGoodBoard();
+    }
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Starts the algorithm in search for a solution. Stops when solution is
+     *   found or 'stop' event is issued.
+    **/
+    @Override
+    public Boolean call() {
+        state = State.RUNNING;
+        prepare();
+        
+        if ((forkJoin && !isBidirectional())? forkTasks() : submitTasks()) {
+            state = State.FINISHED;
+            return true;
+        }
+        
+        state = State.STOPPED;
+        return false;
+    }
+    
+    /**
+     * solve() (from Solver)
+     *
+     * Description:
+     *   Runs the search on this board and the calling thread, without any
+     *   worker threads. Meant for boards that are not shown on a canvas.
+     *
+     * Return Value:
+     *   boolean - true solution was found
+     *           - false if no solution was found or process was stopped
+    **/
+    @Override
+    public boolean solve() {
+        state = State.RUNNING;
+        prepare();
+        
+        stats.begin();
+        try {
+            if (isGoodBoard() && search()) {
+                state = State.FINISHED;
+                return true;
+            }
+        } finally {
+            stats.end();
+        }
+        
+        state = State.STOPPED;
+        return false;
+    }
+    
+    /**
+     * prepare()
+     *
+     * Description:
+     *   Sets up what a new search shares between its workers: a new stop
+     *   flag (with the time limit), new counters and, if enabled, a new dead
+     *   end table.
+    **/
+    protected void prepare() {
+        stop = new StopFlag(timeLimit);
+        statistics = new Statistics();
+        stats = statistics.stripe();
+        if (exposeStatistics)
+            statistics.register();
+        deadEnds = null;
+        if (deadEndBytes > 0) {
+            deadEnds = new DeadEndTable(bounds.height * bounds.width,
+                deadEndBytes);
+            hash = hashPath();
+        }
+        findSymmetries();
+    }
+    
+    /**
+     * findSymmetries()
+     *
+     * Description:
+     *   Finds the rotations and reflections of the board that keep its
+     *   blocks, every square of the current path and the required end in
+     *   place. Each of them maps the paths that complete the current one
+     *   onto other such paths, so moves that are mirror images of each
+     *   other only need one of them searched (see orbitSize()). Nothing is
+     *   skipped when every path has to be listed, or when the path grows
+     *   from both ends.
+    **/
+    protected void findSymmetries() {
+        int h = bounds.height, w = bounds.width, cells = h * w;
+        List<int[]> found = new ArrayList<int[]>();
+        symmetries = null;
+        fixedBy = null;
+        symmetric = null;
+        if (listener != null || isBidirectional())
+            return;
+        
+        for (int s = 1; s < SolutionCache.SYMMETRIES; s++) {
+            if ((s & 4) != 0 && h != w)
+                continue;
+            int[] map = new int[cells];
+            boolean ok = true;
+            for (int c = 0; ok && c < cells; c++) {
+                map[c] = SolutionCache.transform(s, h, w, c);
+                ok = (grid[c / w][c % w] == Square.BLOCK) ==
+                    (grid[map[c] / w][map[c] % w] == Square.BLOCK);
+            }
+            for (int n = 0; ok && n < pathSize; n++)
+                ok = map[path[n]] == path[n];
+            if (ok && end != null)
+                ok = map[cell(end)] == cell(end);
+            if (ok)
+                found.add(map);
+        }
+        if (found.isEmpty())
+            return;
+        
+        symmetries = found.toArray(new int[found.size()][]);
+        fixedBy = new int[cells];
+        for (int n = 0; n < symmetries.length; n++)
+            for (int c = 0; c < cells; c++)
+                if (symmetries[n][c] == c)
+                    fixedBy[c] |= 1 << n;
+        symmetric = new int[cells + 1];
+        Arrays.fill(symmetric, 0, pathSize + 1, (1 << symmetries.length) - 1);
+    }
+    
+    /**
+     * orbitSize()
+     *
+     * Description:
+     *   Called with the current location moved onto a neighbor of the head
+     *   (before forward()). Returns how many of the head's neighbors are
+     *   images of that square under the symmetries leaving the path in
+     *   place (1 if there are none), or 0 if one of them has a smaller
+     *   index, in which case the move is a mirror image of another one and
+     *   is skipped.
+    **/
+    protected int orbitSize() {
+        int mask = (symmetric != null)? symmetric[pathSize] : 0;
+        if (mask == 0)
+            return 1;
+        
+        int c = cell(loc), size = 1;
+        for (int n = 0; n < symmetries.length; n++) {
+            if ((mask & (1 << n)) == 0)
+                continue;
+            int image = symmetries[n][c];
+            if (image < c) {
+                stats.symmetryPrunes++;
+                return 0;
+            }
+            boolean seen = image == c;
+            for (int m = 0; !seen && m < n; m++)
+                seen = (mask & (1 << m)) != 0 && symmetries[m][c] == image;
+            if (!seen)
+                size++;
+        }
+        return size;
+    }
+    
+    /**
+     * newPool()
+     *
+     * Description:
+     *   Returns a pool of the given number of threads, each with a stack of
+     *   STACK_SIZE bytes.
+    **/
+    public static ExecutorService newPool(int threads) {
+        return Executors.newFixedThreadPool(threads,
+            task -> new Thread(null, task, "search", STACK_SIZE));
+    }
+    
+    /**
+     * submitTasks()
+     *
+     * Description:
+     *   Creates worker threads to solve independent subproblems by duplicating
+     *   the current configuration of the board and initializing the paths to
+     *   each worker as an extension of the current path by applying different
+     *   actions. Blocks on a CompletionService until a worker finishes, and
+     *   shuts down the ExecutorService when a solution is found, the
+     *   algorithm terminates, or the search was stopped. With a checkpoint
+     *   file, the workers unfinished are saved to it every 'checkpointMs'
+     *   milliseconds and when the search is stopped (also by the shutdown
+     *   of the JVM), and taken from it instead of frontier() if it exists.
+     *
+     * Return Value:
+     *   boolean - true solution was found
+     *           - false if no solution was found or process was stopped
+    **/
+    public boolean submitTasks() {
+        boolean ret = false;
+        boolean saving = checkpoint != null && !isBidirectional();
+        Queue<WorkerBoard> tasks = (saving)? restore() : frontier();
+        ExecutorService executor = newPool(numWorkers);
+        CompletionService<Boolean> service =
+            new ExecutorCompletionService<Boolean>(executor);
+        Map<Future<Boolean>, WorkerBoard> futures =
+            new HashMap<Future<Boolean>, WorkerBoard>();
+        Future<Boolean> future;
+        WorkerBoard board;
+        long saveTime = System.currentTimeMillis() + checkpointMs;
+        CountDownLatch saved = new CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            stop.stop();
+            try {
+                saved.await(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {}
+        });
+        if (saving)
+            Runtime.getRuntime().addShutdownHook(hook);
+        
+        for (WorkerBoard task : tasks)
+            futures.put(service.submit(task), task);
+        
+        try {
+            while (!futures.isEmpty() && !stop.checkDeadline()) {
+                if (saving && System.currentTimeMillis() >= saveTime) {
+                    save(futures.values());
+                    saveTime = System.currentTimeMillis() + checkpointMs;
+                }
+                future = service.poll(STOP_CHECK_MS, TimeUnit.MILLISECONDS);
+                if (future == null)
+                    continue;
+                board = futures.remove(future);
+                if (future.get()) {
+                    while (pathSize < board.pathSize) {
+                        locate(board.path[pathSize]);
+                        forward();
+                    }
+                    ret = true;
+                    break;
+                }
+                if (stop.isStopped())
+                    futures.put(future, board);
+            }
+        } catch (Exception e) {
+            System.err.println("Future Error");
+        }
+        
+        try {
+            executor.shutdown();
+            stop.stop();
+            for (Future<Boolean> pending : futures.keySet())
+                pending.cancel(false);
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Executor Shutdown Error");
+        }
+        
+        if (saving) {
+            if (ret || futures.isEmpty())
+                new File(checkpoint).delete();
+            else
+                save(futures.values());
+            saved.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {}
+        }
+        return ret;
+    }
+    
+    /**
+     * restore()
+     *
+     * Description:
+     *   Returns the workers saved in the checkpoint file, each on the path
+     *   it started from and resuming along the path it had reached, or
+     *   those of frontier() if there is no file yet.
+     *
+     * Return Value:
+     *   Queue - boards to hand to the workers
+    **/
+    protected Queue<WorkerBoard> restore() {
+        Queue<WorkerBoard> queue = new LinkedList<WorkerBoard>();
+        Checkpoint saved;
+        boolean fits = true;
+        if (!new File(checkpoint).exists()) {
+            for (WorkerBoard task : frontier()) {
+                task.root = task.pathSize;
+                task.progress = Arrays.copyOf(task.path, task.pathSize);
+                queue.add(task);
+            }
+            return queue;
+        }
+        
+        try {
+            saved = Checkpoint.read(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Invalid Checkpoint: " + e.getMessage());
+            throw new IllegalArgumentException();
+        }
+        if (saved.rows != bounds.height || saved.columns != bounds.width ||
+                saved.fingerprint != fingerprint()) {
+            System.err.println(
+                "Invalid Checkpoint: " + checkpoint +
+                ": Saved by the search of another board or with other settings"
+            );
+            throw new IllegalArgumentException();
+        }
+        
+        for (int n = 0; n < saved.paths.length; n++) {
+            int[] progress = saved.paths[n];
+            WorkerBoard task = new WorkerBoard(this);
+            if (saved.roots[n] < pathSize)
+                fits = false;
+            for (int i = 0; fits && i < saved.roots[n]; i++) {
+                int c = progress[i];
+                fits = (i < pathSize)? c == path[i] :
+                    task.isFree(c / bounds.width, c % bounds.width);
+                if (fits && i >= pathSize) {
+                    task.locate(c);
+                    task.forward();
+                }
+            }
+            if (!fits) {
+                System.err.println("Invalid Checkpoint: " + checkpoint +
+                    ": Path does not fit the board");
+                throw new IllegalArgumentException();
+            }
+            task.root = task.pathSize;
+            task.progress = progress;
+            task.resume = progress;
+            queue.add(task);
+        }
+        return queue;
+    }
+    
+    /**
+     * save()
+     *
+     * Description:
+     *   Writes the path each unfinished worker started from and the path it
+     *   last reached to the checkpoint file. A failed write is reported and
+     *   the search goes on.
+    **/
+    protected void save(Collection<WorkerBoard> tasks) {
+        int[] roots = new int[tasks.size()];
+        int[][] paths = new int[tasks.size()][];
+        int n = 0;
+        for (WorkerBoard task : tasks) {
+            roots[n] = task.root;
+            paths[n++] = task.progress;
+        }
+        
+        try {
+            new Checkpoint(bounds.height, bounds.width, fingerprint(), roots,
+                paths).write(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Checkpoint Error: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * fingerprint()
+     *
+     * Description:
+     *   Returns a CRC-32 of the blocks, the path and the end of the board
+     *   and of the move ordering, which decide the order the search tries
+     *   paths in.
+    **/
+    protected int fingerprint() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++)
+                text.append((grid[i][j] == Square.BLOCK)? '1' : '0');
+        for (int n = 0; n < pathSize; n++)
+            text.append(' ').append(path[n]);
+        text.append(' ').append((end == null)? -1 : cell(end))
+            .append(' ').append(cycle).append(' ').append(order);
+        for (MoveAction action : actions)
+            text.append(' ').append(action.getClass().getSimpleName());
+        
+        CRC32 crc = new CRC32();
+        crc.update(text.toString().getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * frontier()
+     *
+     * Description:
+     *   Splits the search into at least 'numWorkers' independent subproblems
+     *   by extending the current path one square at a time, level by level.
+     *   Every path has the same length, so if the whole level dies out (or
+     *   is complete) the current board is returned instead. Of the moves
+     *   that are mirror images of each other only one is queued, weighted
+     *   by how many there are.
+     *
+     * Return Value:
+     *   Queue - boards to hand to the workers
+    **/
+    protected Queue<WorkerBoard> frontier() {
+        int size;
+        Queue<WorkerBoard> queue = new LinkedList<WorkerBoard>();
+        WorkerBoard board;
+        
+        queue.add(new WorkerBoard(this));
+        while ((size = queue.size()) < numWorkers) {
+            if (size == 0) {
+                queue.add(new WorkerBoard(this));
+                size = 1;
+                break;
+            }
+            
+            for (int i = 0; i < size; i++) {
+                board = queue.poll();
+                for (GameBoard.MoveAction action : board.actions(board.grid)) {
+                    if (action.forwardCondition()) {
+                        action.updatePosition();
+                        int orbit = board.orbitSize();
+                        if (orbit > 0) {
+                            board.forward();
+                            WorkerBoard task = new WorkerBoard(board);
+                            task.weight = board.weight * orbit;
+                            queue.add(task);
+                            board.backward();
+                        }
+                        action.undoPosition();
+                    }
+                }
+            }
+        }
+        
+        return queue;
+    }
+    
+    /**
+     * countPaths() (from Solver)
+     *
+     * Description:
+     *   Counts every path from the current location. The frontier boards are
+     *   counted in parallel by 'numWorkers' threads, each keeping its own
+     *   count, and the counts are added up as the workers finish. If the
+     *   search is stopped, the workers still running return what they have
+     *   counted so far.
+     *
+     * Return Value:
+     *   long - number of paths found
+    **/
+    @Override
+    public long countPaths() {
+        long count = 0;
+        int pending = 0;
+        state = State.RUNNING;
+        prepare();
+        ExecutorService executor = newPool(numWorkers);
+        CompletionService<Long> service =
+            new ExecutorCompletionService<Long>(executor);
+        Future<Long> future;
+        
+        for (WorkerBoard task : frontier()) {
+            service.submit(task::count);
+            pending++;
+        }
+        
+        try {
+            while (pending > 0 && !stop.checkDeadline()) {
+                future = service.poll(STOP_CHECK_MS, TimeUnit.MILLISECONDS);
+                if (future == null)
+                    continue;
+                count += future.get();
+                pending--;
+            }
+            
+            for (; pending > 0; pending--)
+                count += service.take().get();
+        } catch (Exception e) {
+            System.err.println("Future Error");
+        }
+        
+        try {
+            executor.shutdown();
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Executor Shutdown Error");
+        }
+        state = (stop.isStopped())? State.STOPPED : State.FINISHED;
+        return count;
+    }
+    
+    /**
+     * setPathListener() (from Solver)
+     *
+     * Description:
+     *   Sets the listener told about every path found by countPaths().
+    **/
+    @Override
+    public void setPathListener(PathListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * forkTasks()
+     *
+     * Description:
+     *   Solves the board on a ForkJoinPool of 'numWorkers' threads. The search
+     *   starts as a single task and splits the remaining moves of a square
+     *   into new tasks whenever a worker runs low on queued work, so idle
+     *   threads can steal subtrees from busy ones.
+     *
+     * Return Value:
+     *   boolean - true solution was found
+     *           - false if no solution was found or process was stopped
+    **/
+    public boolean forkTasks() {
+        ForkBoard board = new ForkBoard(this);
+        if (!board.isGoodBoard())
+            return false;
+        
+        ForkJoinPool pool = new ForkJoinPool(numWorkers);
+        try {
+            if (!pool.invoke(new SearchTask(board)))
+                return false;
+        } catch (Exception e) {
+            System.err.println("Fork/Join Error");
+            return false;
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        while (pathSize < board.pathSize) {
+            locate(board.path[pathSize]);
+            forward();
+        }
+        return true;
+    }
+    
+    /**
+     * isGoal() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Determines whether the goal (a Hamiltonian Path from the starting
+     *   location, ending on the required end or next to the start in cycle
+     *   mode) has been achieved.
+     *
+     * Return Value:
+     *   boolean - true if goal has been reahed
+     *           - false if goal is not yet reached
+    **/
+    @Override
+    public boolean isGoal() {
+        if (pathSize != pathLength)
+            return false;
+        if (end != null && (end.y != loc.y || end.x != loc.x))
+            return false;
+        return !cycle || (pathLength > 2 && isNextToStart(loc.y, loc.x));
+    }
+    
+    /**
+     * actions() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Returns a list form of the possible actions to take.
+     *
+     * Inpputs:
+     *   state - grid/current state of the board
+     *
+     * Return Value:
+     *   List - list of possible actions
+    **/
+    @Override
+    public List<MoveAction> actions(Square[][] state) {
+        return (List<MoveAction>) actions;
+    }
+    
+    /**
+     * findSolution()
+     *
+     * Description:
+     *   Recursive solving algorithm. Checks if the goal has been reached or if
+     *   a 'stop' event was trigerred. Moves to all possible directions (if
+     *   possible) in the order given by the move ordering strategy, skipping
+     *   the mirror images of moves already tried, and the moves a resumed
+     *   search already tried.
+     *
+     * Return Value:
+     *   boolean - true if solution was found
+     *           - false if no solution was found or if process was stopped
+    **/
+    @Override
+    public boolean findSolution() {
+        if (isGoal())
+            return true;
+        
+        countNode();
+        if (isStopped() || isDeadEnd())
+            return false;
+        
+        MoveAction[] list = orderedMoves();
+        int count = order.order(this, list);
+        int first = (resume != null)? resumeFrom(list, count) : 0;
+        for (int k = first; k < count; k++) {
+            list[k].updatePosition();
+            if (orbitSize() == 0) {
+                list[k].undoPosition();
+                continue;
+            }
+            forward();
+            if (isGoodMove() && findSolution())
+                return true;
+            backward();
+            list[k].undoPosition();
+            stats.backtracks++;
+        }
+        
+        markDeadEnd();
+        return false;
+    }
+    
+    /**
+     * resumeFrom()
+     *
+     * Description:
+     *   While the path is the start of 'resume', returns the index of the
+     *   move onto its next square, so the moves before it (searched before
+     *   the checkpoint) are skipped. Once the path reaches the end of
+     *   'resume' or leaves it, the search goes on as usual.
+     *
+     * Inputs:
+     *   list - moves of the current node, in order
+     *   count - number of moves in the list
+     *
+     * Return Value:
+     *   int - index of the first move to try
+    **/
+    protected int resumeFrom(MoveAction[] list, int count) {
+        if (pathSize < resume.length && path[pathSize-1] == resume[pathSize-1])
+            for (int k = 0; k < count; k++) {
+                list[k].updatePosition();
+                int c = cell(loc);
+                list[k].undoPosition();
+                if (c == resume[pathSize])
+                    return k;
+            }
+        resume = null;
+        return 0;
+    }
+    
+    /**
+     * isBidirectional()
+     *
+     * Description:
+     *   Determines whether the search grows the path from both ends: it was
+     *   asked for, and the path has a required end other than the start.
+    **/
+    protected boolean isBidirectional() {
+        return bidirectional && end != null && !cycle &&
+            cell(end) != path[0];
+    }
+    
+    /**
+     * search()
+     *
+     * Description:
+     *   Runs findSolution(), or findSolutionBothWays() if the search is
+     *   bidirectional, and then joins the two halves of the path found into
+     *   one path from the start.
+     *
+     * Return Value:
+     *   boolean - true if solution was found
+     *           - false if no solution was found or if process was stopped
+    **/
+    protected boolean search() {
+        if (!isBidirectional())
+            return findSolution();
+        
+        int start = path[0];
+        tailPath = new int[path.length];
+        Arrays.fill(tailPath, -1);
+        tailPath[0] = cell(end);
+        tailSize = 1;
+        if (!findSolutionBothWays()) {
+            tailSize = 0;
+            return false;
+        }
+        
+        int[] joined = new int[path.length];
+        int size = 0;
+        if (path[0] == start) {
+            for (int i = 0; i < pathSize; i++)
+                joined[size++] = path[i];
+            for (int i = tailSize - 2; i >= 0; i--)
+                joined[size++] = tailPath[i];
+        } else {
+            for (int i = 0; i < tailSize - 1; i++)
+                joined[size++] = tailPath[i];
+            for (int i = pathSize - 1; i >= 0; i--)
+                joined[size++] = path[i];
+        }
+        Arrays.fill(joined, size, joined.length, -1);
+        
+        path = joined;
+        pathSize = pathLength = size;
+        tailSize = 0;
+        locate(path[size - 1]);
+        end.setLocation(loc);
+        return true;
+    }
+    
+    /**
+     * findSolutionBothWays()
+     *
+     * Description:
+     *   Same search as findSolution(), but the path grows from both of its
+     *   ends: each level moves the head with fewer free neighbors, taking
+     *   turns when they have as many, and swaps the heads (see swapHeads())
+     *   when that is the other one. The goal is reached when one head steps
+     *   onto the other after covering every square. Since the other head is
+     *   the 'end' of the current one, isGoodMove() prunes around both.
+     *
+     * Return Value:
+     *   boolean - true if solution was found
+     *           - false if no solution was found or if process was stopped
+    **/
+    protected boolean findSolutionBothWays() {
+        if (isGoal())
+            return true;
+        
+        countNode();
+        if (isStopped() || isDeadEnd())
+            return false;
+        
+        boolean swapped = degree[end.y][end.x] <= degree[loc.y][loc.x];
+        if (swapped)
+            swapHeads();
+        MoveAction[] list = orderedMoves();
+        int count = order.order(this, list);
+        for (int k = 0; k < count; k++) {
+            list[k].updatePosition();
+            forward();
+            if (isGoodMove() && findSolutionBothWays())
+                return true;
+            backward();
+            list[k].undoPosition();
+            stats.backtracks++;
+        }
+        if (swapped)
+            swapHeads();
+        
+        markDeadEnd();
+        return false;
+    }
+    
+    /**
+     * swapHeads()
+     *
+     * Description:
+     *   Makes the other head of a bidirectional search the current location
+     *   and the current location the end it has to reach: swaps the paths
+     *   and their lengths, frees the current square and uses the other one.
+     *   The number of squares the current path has to cover becomes the
+     *   total minus the other path, not counting its head.
+    **/
+    protected void swapHeads() {
+        int[] cells = path;
+        path = tailPath;
+        tailPath = cells;
+        int size = pathSize;
+        pathSize = tailSize;
+        tailSize = size;
+        pathLength += pathSize - tailSize;
+        
+        int head = cell(loc), other = cell(end);
+        setSquare(Square.FREE);
+        locate(other);
+        setSquare(Square.USED);
+        end.setLocation(head % bounds.width, head / bounds.width);
+        if (deadEnds != null)
+            hash ^= deadEnds.usedKey(head) ^ deadEnds.usedKey(other);
+    }
+    
+    /**
+     * countSolutions()
+     *
+     * Description:
+     *   Same search as findSolution(), but goes on after each path found and
+     *   returns how many there were. Only states with no paths at all are
+     *   recorded as dead ends. A move standing for its mirror images counts
+     *   their paths as well.
+     *
+     * Return Value:
+     *   long - number of paths found from the current state
+    **/
+    protected long countSolutions() {
+        if (isGoal()) {
+            if (listener != null)
+                listener.pathFound(this);
+            return 1;
+        }
+        
+        countNode();
+        if (isStopped() || isDeadEnd())
+            return 0;
+        
+        long count = 0;
+        MoveAction[] list = orderedMoves();
+        int size = order.order(this, list);
+        for (int k = 0; k < size; k++) {
+            list[k].updatePosition();
+            int orbit = orbitSize();
+            if (orbit == 0) {
+                list[k].undoPosition();
+                continue;
+            }
+            forward();
+            if (isGoodMove())
+                count += orbit * countSolutions();
+            backward();
+            list[k].undoPosition();
+            stats.backtracks++;
+        }
+        
+        if (count == 0)
+            markDeadEnd();
+        return count;
+    }
+    
+    /**
+     * isDominoTileable()
+     *
+     * Description:
+     *   Determines if the board can be tiled by dominoes, which helps
+     *   determine if a solution exists. The path alternates colors starting
+     *   on the current location's color, so that color has one more square
+     *   than the other color if the path ends on the same color, and as many
+     *   otherwise. When the end is known (or is next to the start, for a
+     *   cycle) the colors have to match exactly. Rescans the whole grid; see
+     *   isParityOk() for the check made at every node.
+     *
+     * Return Value:
+     *   boolean - true if the board is domino tileable
+     *           - false if the board is not domino tileable
+    **/
+    protected boolean isDominoTileable() {
+        int white = 0;
+        int black = 0;
+        boolean flag = true;
         
         for (int i = 0; i < bounds.height; i++, flag = (i % 2) == 0)
             for (int j = 0; j < bounds.width; j++, flag = !flag)
@@ -572,7 +1866,64 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         else
             white++;
         
-        return Math.abs(white - black) < 2;
+        int color = (loc.y + loc.x) % 2;
+        int surplus = (color == 0)? black - white : white - black;
+        if (end == null && !cycle)
+            return surplus == 0 || surplus == 1;
+        
+        int endColor = (end != null)? (end.y + end.x) % 2 :
+            1 - (path[0] / bounds.width + path[0] % bounds.width) % 2;
+        return surplus == ((endColor == color)? 1 : 0);
+    }
+    
+    /**
+     * isParityOk()
+     *
+     * Description:
+     *   Constant time version of isDominoTileable() that uses the color
+     *   balance kept by setSquare(), made at every node. The balance tells
+     *   which color the path has to end on, so it also fails when the
+     *   required end (or the start's neighbors, for a cycle) has the other
+     *   color, or when a square with only one way in (which has to be the
+     *   end) has the other color.
+     *
+     * Return Value:
+     *   boolean - true if the colors still allow a path
+     *           - false if they do not
+    **/
+    protected boolean isParityOk() {
+        int color = (loc.y + loc.x) % 2;
+        int balance = ((color == 0)? surplus : -surplus) + 1;
+        if (balance != 0 && balance != 1)
+            return false;
+        
+        int endColor = (balance == 1)? color : 1 - color;
+        if (end != null)
+            return (end.y + end.x) % 2 == endColor;
+        if (cycle)
+            return (path[0] / bounds.width + path[0] % bounds.width) % 2 !=
+                endColor;
+        
+        int wrong = (endColor == 0)? singles - blackSingles : blackSingles;
+        if (endColor == color)
+            wrong -= singles - singlePathCount();
+        return wrong == 0;
+    }
+    
+    /**
+     * isGoodBoard()
+     *
+     * Description:
+     *   Exact version of isGoodMove() that rescans the whole grid. Used when
+     *   it is not known whether the free squares were connected before the
+     *   last move.
+     *
+     * Return Value:
+     *   boolean - true if board can still be solved
+     *           - false if board cannot be solved
+    **/
+    protected boolean isGoodBoard() {
+        return isEndOk() && isParityOk() && blobCount() < 2 && isSinglesOk();
     }
     
     /**
@@ -580,14 +1931,127 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      *
      * Description:
      *   Determines whether the algorithm should continue in this direction,
-     *   which helps cut time.
+     *   which helps cut time. Assumes the free squares were one blob before
+     *   the last move, so the grid only needs a full rescan when the square
+     *   just claimed may have split them.
      *
      * Return Value:
      *   boolean - true if move was good
      *           - false if move was bad
     **/
     protected boolean isGoodMove() {
-        return blobCount() < 2 && singlePathCount() < 2;
+        if (!isEndOk() || !isSinglesOk()) {
+            stats.singlePrunes++;
+            return false;
+        }
+        if (!isParityOk()) {
+            stats.parityPrunes++;
+            return false;
+        }
+        if (localBlobCount() > 1 && blobCount() > 1) {
+            stats.blobPrunes++;
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * isEndOk()
+     *
+     * Description:
+     *   Determines whether the path can still end where it has to: it may
+     *   not reach the required end early, and in cycle mode a neighbor of
+     *   the start has to be left free for the last square.
+    **/
+    protected boolean isEndOk() {
+        if (pathSize == pathLength)
+            return true;
+        if (end != null && end.y == loc.y && end.x == loc.x)
+            return false;
+        if (!cycle)
+            return true;
+        
+        int y = path[0] / bounds.width, x = path[0] % bounds.width;
+        return isFree(y, x-1) || isFree(y, x+1) || isFree(y-1, x) ||
+            isFree(y+1, x);
+    }
+    
+    /**
+     * isSinglesOk()
+     *
+     * Description:
+     *   Determines whether the squares with only one way in (see
+     *   singlePathCount()) can all be the end of the path. With a free end
+     *   one of them can be; with a required end (or a cycle) only the end
+     *   may have one way in.
+    **/
+    protected boolean isSinglesOk() {
+        int count = singlePathCount();
+        if (end == null && !cycle)
+            return count < 2;
+        if (count == 0)
+            return true;
+        
+        int ends = 0;
+        if (end != null) {
+            if (isFree(end.y, end.x) && oneWayOut(end.y, end.x))
+                ends++;
+        } else {
+            int y = path[0] / bounds.width, x = path[0] % bounds.width;
+            if (isFree(y, x-1) && oneWayOut(y, x-1))
+                ends++;
+            if (isFree(y, x+1) && oneWayOut(y, x+1))
+                ends++;
+            if (isFree(y-1, x) && oneWayOut(y-1, x))
+                ends++;
+            if (isFree(y+1, x) && oneWayOut(y+1, x))
+                ends++;
+        }
+        return count == ends && ends < 2;
+    }
+    
+    /**
+     * localBlobCount()
+     *
+     * Description:
+     *   Looks at the ring of 8 squares around the current location and counts
+     *   how many separate runs of free squares in it touch a free neighbor of
+     *   the current location. With at most one such run the neighbors are
+     *   still connected around the current location, so claiming it cannot
+     *   have split the board. More than one run only means the board may
+     *   have been split.
+     *
+     * Return Value:
+     *   int - number of runs around the current location
+    **/
+    protected int localBlobCount() {
+        int i = loc.y, j = loc.x, runs = 0, first = -1;
+        boolean[] ring = {
+            isFree(i-1, j), isFree(i-1, j+1), isFree(i, j+1), isFree(i+1, j+1),
+            isFree(i+1, j), isFree(i+1, j-1), isFree(i, j-1), isFree(i-1, j-1)
+        };
+        
+        for (int k = 0; k < ring.length; k++)
+            if (!ring[k]) {
+                first = k;
+                break;
+            }
+        if (first < 0)
+            return 1;
+        
+        boolean inRun = false, touches = false;
+        for (int n = 1; n <= ring.length; n++) {
+            int k = (first + n) % ring.length;
+            if (ring[k]) {
+                inRun = true;
+                touches |= (k % 2) == 0;
+            } else if (inRun) {
+                if (touches)
+                    runs++;
+                inRun = touches = false;
+            }
+        }
+        return runs;
     }
     
     /**
@@ -600,66 +2064,54 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      *   int - number of blobs detected
     **/
     protected int blobCount() {
-        int label = 1;
-        int[][] vals = gridToIntVals();
-        if (grid[0][0] == Square.FREE)
-            vals[0][0] = ++label;
-        for (int i = 1; i < bounds.height; i++)
-            if (grid[i][0] == Square.FREE)
-                if (grid[i-1][0] != Square.FREE)
-                    vals[i][0] = ++label;
-                else 
-                    vals[i][0] = vals[i-1][0];
-        for (int j = 1; j < bounds.width; j++)
-            if (grid[0][j] == Square.FREE)
-                if (grid[0][j-1] != Square.FREE)
-                    vals[0][j] = ++label;
-                else
-                    vals[0][j] = vals[0][j-1];
-        for (int i = 1; i < bounds.height; i++)
-            for (int j = 1; j < bounds.width; j++)
-                if (grid[i][j] == Square.FREE)
-                    label = union(vals, i, j, label);
-        return --label;
+        int blobs = 0;
+        for (int i = 0, c = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++, c++) {
+                if (grid[i][j] != Square.FREE)
+                    continue;
+                labels[c] = c;
+                blobs++;
+                if (j > 0 && grid[i][j-1] == Square.FREE && union(c-1, c))
+                    blobs--;
+                if (i > 0 && grid[i-1][j] == Square.FREE &&
+                        union(c-bounds.width, c))
+                    blobs--;
+            }
+        return blobs;
     }
     
     /**
-     * union()
+     * find()
      *
      * Description:
-     *   Marks blobs on the board and returns the number of blobs counted.
+     *   Returns the root label of the blob containing square c, halving the
+     *   path to the root along the way.
+    **/
+    protected int find(int c) {
+        while (labels[c] != c) {
+            labels[c] = labels[labels[c]];
+            c = labels[c];
+        }
+        return c;
+    }
+    
+    /**
+     * union()
      *
-     * Inputs:
-     *   vals - integer version of grid
-     *   i - y-coordinate
-     *   j - x-coordinate
-     *   label - counter that keeps track of the blob id and count
+     * Description:
+     *   Merges the blobs containing squares a and b.
      *
      * Return Value:
-     *   int - current blob count
-    **/
-    protected int union(int[][] vals, int i, int j, int label) {
-        if (grid[i-1][j] != Square.FREE && grid[i][j-1] != Square.FREE) {
-            vals[i][j] = ++label;
-        } else if (grid[i][j-1] != Square.FREE) {
-            vals[i][j] = vals[i-1][j];
-        } else if (grid[i-1][j] != Square.FREE) {
-            vals[i][j] = vals[i][j-1];
-        } else {
-            vals[i][j] = Math.min(vals[i-1][j], vals[i][j-1]);
-            if (vals[i-1][j] != vals[i][j-1]) {
-                --label;
-                int max = Math.max(vals[i-1][j], vals[i][j-1]);
-                for (int a = 0; a < i; a++)
-                    for (int b = 0; b < bounds.width; b++)
-                        if (vals[a][b] == max)
-                            vals[a][b] = vals[i][j];
-                for (int b = 0; b < j; b++)
-                    if (vals[i][b] == max)
-                        vals[i][b] = vals[i][j];
-            }
-        }
-        return label;
+     *   boolean - true if two different blobs were merged
+     *           - false if the squares were already in the same blob
+    **/
+    protected boolean union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b)
+            return false;
+        labels[Math.max(a, b)] = Math.min(a, b);
+        return true;
     }
     
     /**
@@ -667,17 +2119,23 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      *
      * Description:
      *   Keeps track of how many cells have only on way in, in which case the
-     *   board cannot be solved at the current state.
+     *   board cannot be solved at the current state. Uses the count kept by
+     *   setSquare() and only looks at the neighbors of the current location,
+     *   which still have a way in from it.
      *
      * Return Value:
      *   int - number of squares with only one way in
     **/
     protected int singlePathCount() {
-        int count = 0;
-        for (int i = 0; i < bounds.height; i++)
-            for (int j = 0; j < bounds.width; j++)
-                if (grid[i][j] == Square.FREE && oneWayOut(i, j))
-                    count++;
+        int count = singles;
+        if (isFree(loc.y, loc.x-1) && degree[loc.y][loc.x-1] == 1)
+            count--;
+        if (isFree(loc.y, loc.x+1) && degree[loc.y][loc.x+1] == 1)
+            count--;
+        if (isFree(loc.y-1, loc.x) && degree[loc.y-1][loc.x] == 1)
+            count--;
+        if (isFree(loc.y+1, loc.x) && degree[loc.y+1][loc.x] == 1)
+            count--;
         return count;
     }
     
@@ -702,20 +2160,7 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         if (loc.x == j && (loc.y == i-1 || loc.y == i+1))
             return false;
         
-        int surround = 0;
-        if (j == 0 || grid[i][j-1] != Square.FREE)
-            surround++;
-        
-        if (j == bounds.width-1 || grid[i][j+1] != Square.FREE)
-            surround++;
-        
-        if (i == 0 || grid[i-1][j] != Square.FREE)
-            surround++;
-        
-        if (i == bounds.height-1 || grid[i+1][j] != Square.FREE)
-            surround++;
-        
-        return surround == 3;
+        return degree[i][j] == 1;
     }
     
     /**
@@ -723,21 +2168,192 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
      * subproblems generated by the main thread.
     **/
     protected static class WorkerBoard extends GameBoard {
+        /* number of mirror image subproblems this one stands for */
+        protected long weight = 1;
+        /* number of squares of the path the subproblem starts from, and the
+         * path last reached, saved every DEADLINE_NODES nodes while the
+         * search is checkpointed (null otherwise)
+         */
+        protected int root;
+        protected volatile int[] progress;
         public WorkerBoard(GameBoard old) {super(old);}
         @Override
+        protected void saveProgress() {
+            if (progress != null)
+                progress = Arrays.copyOf(path, pathSize);
+        }
+        @Override
         public final Boolean call() {
             state = State.RUNNING;
+            stats = statistics.stripe();
             
-            if (findSolution()) {
-                state = State.FINISHED;
-                return true;
+            stats.begin();
+            try {
+                if (isGoodBoard() && search()) {
+                    state = State.FINISHED;
+                    return true;
+                }
+            } finally {
+                stats.end();
             }
             
-            if (state != State.STOPPED)
-                state = State.STOPPED;
+            state = State.STOPPED;
+            return false;
+        }
+        
+        /**
+         * count()
+         *
+         * Description:
+         *   Counts the paths of this subproblem on the calling thread.
+        **/
+        public final long count() {
+            stats = statistics.stripe();
+            
+            stats.begin();
+            try {
+                return (isGoodBoard())? weight * countSolutions() : 0;
+            } finally {
+                stats.end();
+            }
+        }
+    }
+    
+    /**
+     * ForkBoard class defines a GameBoard solver that runs inside a
+     * ForkJoinPool and hands its remaining moves to other workers when they
+     * have nothing to do.
+    **/
+    protected static class ForkBoard extends GameBoard {
+        public ForkBoard(GameBoard old) {super(old);}
+        
+        /**
+         * findSolution() (from GameBoard)
+         *
+         * Description:
+         *   Same search as GameBoard, but before each move checks whether
+         *   the rest of the moves should be split into stealable tasks.
+        **/
+        @Override
+        public boolean findSolution() {
+            if (isGoal())
+                return true;
+            
+            countNode();
+            if (isStopped() || isDeadEnd())
+                return false;
+            
+            MoveAction[] list = orderedMoves();
+            int count = order.order(this, list);
+            for (int k = 0; k < count; k++) {
+                if (canSplit())
+                    return splitFrom(list, k, count);
+                list[k].updatePosition();
+                if (orbitSize() == 0) {
+                    list[k].undoPosition();
+                    continue;
+                }
+                forward();
+                if (isGoodMove() && findSolution())
+                    return true;
+                backward();
+                list[k].undoPosition();
+                stats.backtracks++;
+            }
             
+            markDeadEnd();
             return false;
         }
+        
+        /**
+         * canSplit()
+         *
+         * Description:
+         *   Determines whether the subtree left is large enough, and this
+         *   worker's queue short enough, for splitting to pay off.
+        **/
+        protected boolean canSplit() {
+            return pathLength - pathSize >= SPLIT_CELLS &&
+                ForkJoinTask.getSurplusQueuedTaskCount() < SPLIT_SURPLUS;
+        }
+        
+        /**
+         * splitFrom()
+         *
+         * Description:
+         *   Turns every good move from the given index onwards into its own
+         *   task, forks all but the first, runs the first here and joins the
+         *   rest. A task that finds a solution stops the others at their
+         *   next node (see SearchTask), so the joins return as soon as any
+         *   of them, stolen or not, has a path, which is then copied.
+         *
+         * Inputs:
+         *   list - ordered moves of the current square
+         *   first - index of the first move to split
+         *   count - number of moves in the list
+         *
+         * Return Value:
+         *   boolean - true if one of the tasks found a solution
+         *           - false otherwise
+        **/
+        protected boolean splitFrom(MoveAction[] list, int first, int count) {
+            List<SearchTask> tasks = new ArrayList<SearchTask>(count - first);
+            for (int k = first; k < count; k++) {
+                list[k].updatePosition();
+                if (orbitSize() == 0) {
+                    list[k].undoPosition();
+                    continue;
+                }
+                forward();
+                if (isGoodMove())
+                    tasks.add(new SearchTask(new ForkBoard(this)));
+                backward();
+                list[k].undoPosition();
+            }
+            
+            for (int k = tasks.size()-1; k > 0; k--)
+                tasks.get(k).fork();
+            
+            ForkBoard winner = null;
+            for (int k = 0; k < tasks.size(); k++) {
+                SearchTask task = tasks.get(k);
+                if (((k == 0)? task.invoke() : task.join()) && winner == null)
+                    winner = task.board;
+            }
+            
+            if (winner == null) {
+                markDeadEnd();
+                return false;
+            }
+            while (pathSize < winner.pathSize) {
+                locate(winner.path[pathSize]);
+                forward();
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * SearchTask class runs the search of a ForkBoard as a ForkJoinTask, and
+     * stops every other task of the search once it finds a solution
+    **/
+    protected static class SearchTask extends RecursiveTask<Boolean> {
+        protected final ForkBoard board;
+        public SearchTask(ForkBoard board) {this.board = board;}
+        @Override
+        protected Boolean compute() {
+            SearchStats stats = board.statistics.stripe();
+            board.stats = stats;
+            stats.begin();
+            try {
+                if (!board.findSolution())
+                    return false;
+                board.stop.stop();
+                return true;
+            } finally {
+                stats.end();
+            }
+        }
     }
     
     /**
@@ -756,7 +2372,13 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
                 }
         }
         
-        public void undoPosition() {loc.setLocation(path.get(pathSize-1));}
+        public void undoPosition() {locate(path[pathSize-1]);}
+        public int onwardMoves() {
+            updatePosition();
+            int onward = degree[loc.y][loc.x];
+            undoPosition();
+            return onward;
+        }
         public abstract void updatePosition();
         public abstract boolean forwardCondition();
         public abstract boolean backwardCondition();
@@ -771,7 +2393,7 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         public boolean forwardCondition()
         {return loc.x > 0 && grid[loc.y][loc.x-1] == Square.FREE;}
         public boolean backwardCondition()
-        {return path.get(pathSize-2).x == loc.x-1;}
+        {return loc.x > 0 && path[pathSize-2] == cell(loc)-1;}
     }
     
     /**
@@ -783,7 +2405,7 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         public boolean forwardCondition()
         {return loc.x < bounds.width-1 && grid[loc.y][loc.x+1] == Square.FREE;}
         public boolean backwardCondition()
-        {return path.get(pathSize-2).x == loc.x+1;}
+        {return loc.x < bounds.width-1 && path[pathSize-2] == cell(loc)+1;}
     }
     
     /**
@@ -795,7 +2417,7 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
         public boolean forwardCondition()
         {return loc.y > 0 && grid[loc.y-1][loc.x] == Square.FREE;}
         public boolean backwardCondition()
-        {return path.get(pathSize-2).y == loc.y-1;}
+        {return path[pathSize-2] == cell(loc)-bounds.width;}
     }
     
     /**
@@ -809,7 +2431,7 @@ implements StateSpaceSearch<Square[][], GameBoard.MoveAction, Boolean> {
                 grid[loc.y+1][loc.x] == Square.FREE;
         }
         public boolean backwardCondition()
-        {return path.get(pathSize-2).y == loc.y+1;}
+        {return path[pathSize-2] == cell(loc)+bounds.width;}
     }
     
     /**
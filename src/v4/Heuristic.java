@@ -0,0 +1,58 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * Heuristic enum class defining the move ordering strategies
+ *   FIXED - tries the moves in the order chosen by the user
+ *   FORCED - tries first the neighbors that have no other way in (or only one
+ *            other way in), then the rest in the order chosen by the user
+ *   WARNSDORFF - tries the neighbors with the fewest onward moves first,
+ *                breaking ties with the order chosen by the user
+**/
+enum Heuristic implements MoveOrder {
+    FIXED {
+        protected int rank(int onward) {return 0;}
+    },
+    FORCED {
+        protected int rank(int onward) {return Math.min(onward, 2);}
+    },
+    WARNSDORFF {
+        protected int rank(int onward) {return onward;}
+    };
+    
+    /**
+     * rank()
+     *
+     * Description:
+     *   Returns the sort key of a move given the number of free neighbors of
+     *   the square it moves to (lower keys are tried first).
+    **/
+    protected abstract int rank(int onward);
+    
+    /**
+     * order() (from MoveOrder)
+     *
+     * Description:
+     *   Collects the possible moves in the user's order and stably sorts them
+     *   by rank(). At most 4 moves are sorted, so insertion sort is used and
+     *   ranks are recomputed instead of stored to avoid allocating.
+    **/
+    @Override
+    public int order(GameBoard board, GameBoard.MoveAction[] moves) {
+        int count = 0;
+        for (GameBoard.MoveAction action : board.actions(null))
+            if (action.forwardCondition()) {
+                int k = count++;
+                if (this != FIXED) {
+                    int rank = rank(action.onwardMoves());
+                    for (; k > 0 && rank(moves[k-1].onwardMoves()) > rank; k--)
+                        moves[k] = moves[k-1];
+                }
+                moves[k] = action;
+            }
+        return count;
+    }
+}
\ No newline at end of file
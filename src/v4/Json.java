@@ -0,0 +1,281 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json class that reads and writes the small JSON documents exchanged with
+ * clients. Values are read as Map (objects), List (arrays), String, Long or
+ * Double (numbers), Boolean and null.
+**/
+class Json {
+    /* most objects and arrays a value may be nested in */
+    protected static final int MAX_DEPTH = 64;
+    /* text being read and the index of the next character */
+    protected final String text;
+    protected int next;
+    /* number of objects and arrays the next value is nested in */
+    protected int depth;
+    
+    /**
+     * Constructor that starts reading the given text.
+    **/
+    protected Json(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * parse()
+     *
+     * Description:
+     *   Reads a JSON document holding a single value.
+     *
+     * Inputs:
+     *   text - document to read
+     *
+     * Return Value:
+     *   Object - value read
+    **/
+    public static Object parse(String text) throws IOException {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpace();
+        if (json.next < text.length())
+            throw json.error("Unexpected text after the value");
+        return value;
+    }
+    
+    /**
+     * quote()
+     *
+     * Description:
+     *   Returns a string as a JSON string literal.
+    **/
+    public static String quote(String string) {
+        StringBuilder builder = new StringBuilder(string.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+    
+    /**
+     * error()
+     *
+     * Description:
+     *   Returns the exception reporting a malformed document.
+    **/
+    protected IOException error(String message) {
+        return new IOException(message + " at offset " + next);
+    }
+    
+    /**
+     * skipSpace()
+     *
+     * Description:
+     *   Moves past any white space.
+    **/
+    protected void skipSpace() {
+        while (next < text.length() &&
+                Character.isWhitespace(text.charAt(next)))
+            next++;
+    }
+    
+    /**
+     * expect()
+     *
+     * Description:
+     *   Moves past the given text, which has to come next.
+    **/
+    protected void expect(String word) throws IOException {
+        if (!text.startsWith(word, next))
+            throw error("Expected '" + word + "'");
+        next += word.length();
+    }
+    
+    /**
+     * accept()
+     *
+     * Description:
+     *   Moves past the given text if it comes next.
+     *
+     * Return Value:
+     *   boolean - true if the text came next
+     *           - false otherwise
+    **/
+    protected boolean accept(String word) {
+        if (!text.startsWith(word, next))
+            return false;
+        next += word.length();
+        return true;
+    }
+    
+    /**
+     * value()
+     *
+     * Description:
+     *   Reads the next value of any type. Objects and arrays are read
+     *   recursively, so they may only be nested MAX_DEPTH deep.
+    **/
+    protected Object value() throws IOException {
+        skipSpace();
+        if (next >= text.length())
+            throw error("Unexpected end of document");
+        
+        char c = text.charAt(next);
+        if (c == '{' || c == '[') {
+            if (++depth > MAX_DEPTH)
+                throw error("Value nested too deeply");
+            Object value = (c == '{')? object() : array();
+            depth--;
+            return value;
+        }
+        if (c == '"')
+            return string();
+        if (c == 't') {
+            expect("true");
+            return Boolean.TRUE;
+        }
+        if (c == 'f') {
+            expect("false");
+            return Boolean.FALSE;
+        }
+        if (c == 'n') {
+            expect("null");
+            return null;
+        }
+        return number();
+    }
+    
+    /**
+     * object()
+     *
+     * Description:
+     *   Reads an object, keeping its members in order.
+    **/
+    protected Map<String, Object> object() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        expect("{");
+        skipSpace();
+        if (accept("}"))
+            return map;
+        do {
+            skipSpace();
+            if (!text.startsWith("\"", next))
+                throw error("Expected a member name");
+            String name = string();
+            skipSpace();
+            expect(":");
+            map.put(name, value());
+            skipSpace();
+        } while (accept(","));
+        expect("}");
+        return map;
+    }
+    
+    /**
+     * array()
+     *
+     * Description:
+     *   Reads an array.
+    **/
+    protected List<Object> array() throws IOException {
+        List<Object> list = new ArrayList<Object>();
+        expect("[");
+        skipSpace();
+        if (accept("]"))
+            return list;
+        do {
+            list.add(value());
+            skipSpace();
+        } while (accept(","));
+        expect("]");
+        return list;
+    }
+    
+    /**
+     * string()
+     *
+     * Description:
+     *   Reads a string literal, replacing its escapes.
+    **/
+    protected String string() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        expect("\"");
+        while (next < text.length()) {
+            char c = text.charAt(next++);
+            if (c == '"')
+                return builder.toString();
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (next >= text.length())
+                break;
+            c = text.charAt(next++);
+            switch (c) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (next + 4 > text.length())
+                        throw error("Invalid escape");
+                    try {
+                        builder.append((char) Integer.parseInt(
+                            text.substring(next, next + 4), 16
+                        ));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid escape");
+                    }
+                    next += 4;
+                    break;
+                default: builder.append(c); break;
+            }
+        }
+        throw error("Unterminated string");
+    }
+    
+    /**
+     * number()
+     *
+     * Description:
+     *   Reads a number, as a Long if it has no fraction or exponent.
+    **/
+    protected Number number() throws IOException {
+        int first = next;
+        while (next < text.length() &&
+                "+-0123456789.eE".indexOf(text.charAt(next)) >= 0)
+            next++;
+        String number = text.substring(first, next);
+        try {
+            if (number.matches("-?\\d+"))
+                return Long.parseLong(number);
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            next = first;
+            throw error("Invalid value");
+        }
+    }
+}
\ No newline at end of file
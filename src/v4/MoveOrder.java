@@ -0,0 +1,27 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * MoveOrder interface for the strategies that decide in which order the
+ * search tries the moves available from the current location
+**/
+interface MoveOrder {
+    /**
+     * order()
+     *
+     * Description:
+     *   Stores the moves that can be made from the board's current location
+     *   in the order they should be tried.
+     *
+     * Inputs:
+     *   board - board being searched
+     *   moves - array (of at least 4 entries) to store the moves in
+     *
+     * Return Value:
+     *   int - number of moves stored
+    **/
+    public int order(GameBoard board, GameBoard.MoveAction[] moves);
+}
\ No newline at end of file
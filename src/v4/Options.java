@@ -0,0 +1,165 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * Options class that holds the solver settings given on the command line and
+ * builds engines configured with them
+**/
+class Options implements Cloneable {
+    /* number of threads to use */
+    protected int numThreads = 1;
+    /* time limit in milliseconds (0 for no limit) */
+    protected long limit;
+    /* bytes of the dead end table (0 for no table) */
+    protected long cache;
+    /* move ordering strategy */
+    protected Heuristic heuristic = Heuristic.FIXED;
+    /* whether to use the bitboard engine and/or work stealing */
+    protected boolean bitboard, forkJoin;
+    /* whether to print the search counters and expose them with JMX */
+    protected boolean stats;
+    /* whether to count every path, and whether to print each of them */
+    protected boolean count, enumerate;
+    /* whether narrow boards are solved with the profile engine */
+    protected boolean profile = true;
+    /* square the path has to end on (negative to end anywhere) */
+    protected int endY = -1, endX = -1;
+    /* whether the path has to end next to the start, closing a cycle */
+    protected boolean cycle;
+    /* whether a search with a required end grows the path from both ends */
+    protected boolean bidirectional;
+    /* file a search saves its progress to and resumes from (null for none),
+       and the milliseconds between saves */
+    protected String checkpoint;
+    protected long checkpointMs = 60000;
+    /* answers of the puzzles already solved (null for none), shared by the
+       copies of the settings */
+    protected SolutionCache results;
+    
+    /**
+     * copy()
+     *
+     * Description:
+     *   Returns a copy of the settings that can be changed for one puzzle.
+    **/
+    public Options copy() {
+        try {
+            return (Options) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+    
+    /**
+     * configure()
+     *
+     * Description:
+     *   Applies the settings to a GameBoard.
+    **/
+    public void configure(GameBoard board) {
+        board.setForkJoin(forkJoin);
+        board.setMoveOrder(heuristic);
+        board.setTimeLimit(limit);
+        board.setDeadEndCache(cache);
+        board.setStatistics(stats);
+        board.setEnd(endY, endX);
+        board.setCycle(cycle);
+        board.setBidirectional(bidirectional);
+        board.setCheckpoint(checkpoint, checkpointMs);
+    }
+    
+    /**
+     * configure()
+     *
+     * Description:
+     *   Applies the settings to a GameBoard of the given puzzle, which ends
+     *   on the square named in its file unless the settings name one.
+    **/
+    public void configure(GameBoard board, Puzzle puzzle) {
+        configure(board);
+        if (endY < 0)
+            board.setEnd(puzzle.endY, puzzle.endX);
+    }
+    
+    /**
+     * newSolver()
+     *
+     * Description:
+     *   Builds the engine chosen by the settings for the given puzzle. Narrow
+     *   boards (see ProfileBoard.isNarrow()) get the profile engine unless
+     *   another engine was asked for, the paths are to be listed or a
+     *   setting only a search honors was given (see needsSearch()). The end square named in the puzzle file
+     *   is used unless the settings name one. With a result cache the engine
+     *   is put behind it, unless the paths are to be listed.
+     *
+     * Inputs:
+     *   puzzle - puzzle to solve
+     *   workerCount - number of worker threads the engine may use
+     *
+     * Return Value:
+     *   Solver - configured engine
+    **/
+    public Solver newSolver(Puzzle puzzle, int workerCount) {
+        Solver solver = newEngine(puzzle, workerCount);
+        if (results == null || enumerate)
+            return solver;
+        return (endY >= 0)?
+            new CachedSolver(solver, results, puzzle, endY, endX, cycle) :
+            new CachedSolver(solver, results, puzzle,
+                puzzle.endY, puzzle.endX, cycle);
+    }
+    
+    /**
+     * newEngine()
+     *
+     * Description:
+     *   Builds the engine chosen by the settings for the given puzzle (see
+     *   newSolver()).
+    **/
+    protected Solver newEngine(Puzzle puzzle, int workerCount) {
+        if (bitboard && (endY >= 0 || puzzle.endY >= 0 || cycle))
+            throw new IllegalArgumentException(
+                "Use of 'end' or 'cycle' with 'bitboard'");
+        
+        if (bitboard) {
+            BitBoard bits = new BitBoard(puzzle.grid, puzzle.y, puzzle.x);
+            bits.setTimeLimit(limit);
+            return bits;
+        }
+        
+        if (profile && !enumerate && !needsSearch(workerCount) &&
+                ProfileBoard.isNarrow(puzzle.grid, count)) {
+            ProfileBoard plugs =
+                new ProfileBoard(puzzle.grid, puzzle.y, puzzle.x);
+            plugs.setTimeLimit(limit);
+            plugs.setEnd(endY, endX);
+            if (endY < 0)
+                plugs.setEnd(puzzle.endY, puzzle.endX);
+            plugs.setCycle(cycle);
+            return plugs;
+        }
+        
+        GameBoard game =
+            new GameBoard(puzzle.grid, puzzle.y, puzzle.x, workerCount);
+        configure(game, puzzle);
+        return game;
+    }
+    
+    /**
+     * needsSearch()
+     *
+     * Description:
+     *   Determines whether a setting only a GameBoard search honors was
+     *   given: worker threads, work stealing, a dead end table, a move
+     *   order other than the fixed one, growing the path from both ends, a
+     *   checkpoint file, or search counters.
+    **/
+    protected boolean needsSearch(int workerCount) {
+        return workerCount > 1 || forkJoin || cache > 0 ||
+            heuristic != Heuristic.FIXED || bidirectional ||
+            checkpoint != null || stats;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * PathListener interface for receiving every path found while counting.
+ * Workers call it from their own threads, so it must be thread-safe.
+**/
+interface PathListener {
+    /**
+     * pathFound()
+     *
+     * Description:
+     *   Called with a board whose current path is complete. The board keeps
+     *   searching once this returns, so the path must be read right away.
+     *
+     * Inputs:
+     *   board - board holding the path (e.g. for pathToString())
+    **/
+    public void pathFound(Solver board);
+}
\ No newline at end of file
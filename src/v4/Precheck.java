@@ -0,0 +1,440 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.util.Arrays;
+
+/**
+ * Precheck class that runs fast structural tests on a board before it is
+ * searched, and remembers which test failed along with a certificate: the
+ * squares (and counts) that show no path can exist. The tests only look at
+ * the graph of free squares, so they take time linear in the board size:
+ *   connectivity - every free square can be reached from the start
+ *   one-way squares - a square with one free neighbor has to be the end
+ *   parity - the path alternates colors, so the color counts are fixed
+ *   cut square - a square whose removal splits the free squares (found
+ *                with a depth-first search) can only be crossed once
+**/
+class Precheck {
+    /**
+     * Test enum of the structural tests, in the order they are run.
+    **/
+    public enum Test {
+        CONNECTIVITY("connectivity"),
+        ONE_WAY("one-way squares"),
+        PARITY("parity"),
+        CUT_SQUARE("cut square");
+        
+        /* name printed in the reports */
+        protected final String label;
+        
+        private Test(String label) {
+            this.label = label;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    
+    /* dimensions of the board */
+    protected int width, height;
+    /* squares that cannot be part of the path (blocked or already used) */
+    protected boolean[] blocked;
+    /* linear index of the start and of the required end (-1 if none) */
+    protected int start, end = -1;
+    /* whether the path has to end next to the start, closing a cycle */
+    protected boolean cycle;
+    /* number of free squares, counting the start */
+    protected int count;
+    /* depth-first search order of each square (-1 if not reached), lowest
+     * order reachable from its subtree, and size of its subtree
+     */
+    protected int[] disc, low, size;
+    /* parent of each square in the search and squares in search order */
+    protected int[] parent, order;
+    /* square that has to be the end because it has one neighbor (-1 if
+     * none), and the color the path has to end on
+     */
+    protected int oneWay, endColor;
+    /* test that failed (null if all passed) and its certificate */
+    protected Test failed;
+    protected String certificate;
+    
+    /**
+     * Constructor that initializes the checks on a 2D boolean array of the
+     * squares that cannot be part of the path and the starting coordinates.
+    **/
+    public Precheck(boolean[][] grid, int y, int x) {
+        height = grid.length;
+        width = grid[0].length;
+        blocked = new boolean[width * height];
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++)
+                blocked[i * width + j] = grid[i][j] && (i != y || j != x);
+        start = y * width + x;
+    }
+    
+    /**
+     * setEnd()
+     *
+     * Description:
+     *   Sets the square the path has to end on.
+     *
+     * Inputs:
+     *   y, x - coordinates of the square (negative to end anywhere)
+    **/
+    public void setEnd(int y, int x) {
+        end = (y < 0 || x < 0)? -1 : y * width + x;
+    }
+    
+    /**
+     * setCycle()
+     *
+     * Description:
+     *   Sets whether the path has to end next to the start.
+    **/
+    public void setCycle(boolean value) {
+        cycle = value;
+    }
+    
+    /**
+     * getFailedTest()
+     *
+     * Description:
+     *   Returns the test that failed in the last run (null if none did).
+    **/
+    public Test getFailedTest() {
+        return failed;
+    }
+    
+    /**
+     * getCertificate()
+     *
+     * Description:
+     *   Returns why the failed test failed (null if none did).
+    **/
+    public String getCertificate() {
+        return certificate;
+    }
+    
+    /**
+     * run()
+     *
+     * Description:
+     *   Runs every test in order and stops at the first that fails.
+     *
+     * Return Value:
+     *   boolean - true if every test passed (the board may be solvable)
+     *           - false if a test failed (the board is not solvable)
+    **/
+    public boolean run() {
+        failed = null;
+        certificate = null;
+        return isConnected() && isOneWayOk() && isParityOk() &&
+            isCutSquaresOk();
+    }
+    
+    /**
+     * fail()
+     *
+     * Description:
+     *   Records the failed test and its certificate.
+     *
+     * Return Value:
+     *   boolean - always false
+    **/
+    protected boolean fail(Test test, String text) {
+        failed = test;
+        certificate = text;
+        return false;
+    }
+    
+    /**
+     * neighbor()
+     *
+     * Description:
+     *   Returns the free neighbor of square c in direction k (0 to 3), or -1
+     *   if it is off the board or not free.
+    **/
+    protected int neighbor(int c, int k) {
+        int i = c / width, j = c % width;
+        switch (k) {
+            case 0: j--; break;
+            case 1: j++; break;
+            case 2: i--; break;
+            default: i++; break;
+        }
+        if (i < 0 || j < 0 || i >= height || j >= width ||
+                blocked[i * width + j])
+            return -1;
+        return i * width + j;
+    }
+    
+    /**
+     * degree()
+     *
+     * Description:
+     *   Returns the number of free neighbors of square c.
+    **/
+    protected int degree(int c) {
+        int degree = 0;
+        for (int k = 0; k < 4; k++)
+            if (neighbor(c, k) >= 0)
+                degree++;
+        return degree;
+    }
+    
+    /**
+     * name(), colorName()
+     *
+     * Description:
+     *   Return the coordinates of square c, and the name of a color, as
+     *   printed in the certificates.
+    **/
+    protected String name(int c) {
+        return "[" + (c / width) + ", " + (c % width) + "]";
+    }
+    
+    protected static String colorName(int color) {
+        return (color == 0)? "black" : "white";
+    }
+    
+    /**
+     * color()
+     *
+     * Description:
+     *   Returns the checkerboard color of square c (0 for black, which
+     *   includes the top left corner, 1 for white).
+    **/
+    protected int color(int c) {
+        return (c / width + c % width) % 2;
+    }
+    
+    /**
+     * isConnected()
+     *
+     * Description:
+     *   Runs a depth-first search from the start (with its own stack, so
+     *   large boards cannot overflow the thread's) that numbers the squares
+     *   for isCutSquaresOk(), and fails if a free square was not reached.
+    **/
+    protected boolean isConnected() {
+        int cells = width * height;
+        disc = new int[cells];
+        low = new int[cells];
+        size = new int[cells];
+        parent = new int[cells];
+        order = new int[cells];
+        int[] stack = new int[cells], next = new int[cells];
+        Arrays.fill(disc, -1);
+        
+        int time = 0, top = 0;
+        disc[start] = low[start] = time;
+        order[time++] = start;
+        parent[start] = -1;
+        stack[top++] = start;
+        while (top > 0) {
+            int v = stack[top-1];
+            if (next[v] < 4) {
+                int w = neighbor(v, next[v]++);
+                if (w < 0)
+                    continue;
+                if (disc[w] < 0) {
+                    disc[w] = low[w] = time;
+                    order[time++] = w;
+                    parent[w] = v;
+                    stack[top++] = w;
+                } else if (w != parent[v]) {
+                    low[v] = Math.min(low[v], disc[w]);
+                }
+                continue;
+            }
+            top--;
+            size[v] = time - disc[v];
+            if (parent[v] >= 0)
+                low[parent[v]] = Math.min(low[parent[v]], low[v]);
+        }
+        
+        count = 0;
+        for (int c = 0; c < cells; c++)
+            if (!blocked[c])
+                count++;
+        if (time == count)
+            return true;
+        
+        for (int c = 0; c < cells; c++)
+            if (!blocked[c] && disc[c] < 0)
+                return fail(Test.CONNECTIVITY, "square " + name(c) +
+                    " cannot be reached from the start " + name(start));
+        return true;
+    }
+    
+    /**
+     * isOneWayOk()
+     *
+     * Description:
+     *   A square other than the start with one free neighbor can be entered
+     *   but not left, so it has to be the end: there can be only one, it
+     *   has to be the required end, and a cycle cannot have any (nor a
+     *   start with one neighbor).
+    **/
+    protected boolean isOneWayOk() {
+        oneWay = -1;
+        if (count < 2)
+            return true;
+        
+        if (cycle && count > 2 && degree(start) < 2)
+            return fail(Test.ONE_WAY, "the start " + name(start) +
+                " has one neighbor, so no cycle can come back to it");
+        
+        for (int n = 1; n < count; n++) {
+            int c = order[n];
+            if (degree(c) != 1)
+                continue;
+            if (cycle)
+                return fail(Test.ONE_WAY, "square " + name(c) +
+                    " has one neighbor, so no cycle can pass through it");
+            if (end >= 0 && c != end)
+                return fail(Test.ONE_WAY, "square " + name(c) +
+                    " has one neighbor, so it has to be the end instead of " +
+                    name(end));
+            if (oneWay >= 0)
+                return fail(Test.ONE_WAY, "squares " + name(oneWay) +
+                    " and " + name(c) + " both have one neighbor, so both " +
+                    "have to be the end");
+            oneWay = c;
+        }
+        return true;
+    }
+    
+    /**
+     * isParityOk()
+     *
+     * Description:
+     *   The path alternates colors starting on the start's color, so that
+     *   color has as many squares as the other one, or exactly one more if
+     *   the path ends on it. The difference fixes the color of the end,
+     *   which has to match the required end, the one-way square, or (for a
+     *   cycle) the other color than the start's.
+    **/
+    protected boolean isParityOk() {
+        int color = color(start), same = 0;
+        for (int n = 0; n < count; n++)
+            if (color(order[n]) == color)
+                same++;
+        int balance = 2 * same - count;
+        String counts = same + " " + colorName(color) + " and " +
+            (count - same) + " " + colorName(1 - color) + " free squares";
+        
+        if (balance != 0 && balance != 1)
+            return fail(Test.PARITY, counts + ", but a path from the " +
+                colorName(color) + " start " + name(start) + " needs as " +
+                "many of each, or one more " + colorName(color));
+        
+        endColor = (balance == 1)? color : 1 - color;
+        if (cycle && endColor == color)
+            return fail(Test.PARITY, counts + ", but a cycle needs as many " +
+                "of each");
+        if (end >= 0 && color(end) != endColor)
+            return fail(Test.PARITY, counts + ", so the path has to end on " +
+                "a " + colorName(endColor) + " square, not on " + name(end));
+        if (oneWay >= 0 && color(oneWay) != endColor)
+            return fail(Test.PARITY, counts + ", so the path has to end on " +
+                "a " + colorName(endColor) + " square, not on the one-way " +
+                "square " + name(oneWay));
+        return true;
+    }
+    
+    /**
+     * isCutSquaresOk()
+     *
+     * Description:
+     *   Uses the depth-first search of isConnected(): a square other than
+     *   the start splits off the subtree of each child whose subtree cannot
+     *   reach above it. The path crosses such a square once, so it leaves
+     *   at most two parts and the end has to be in the part away from the
+     *   start. Those parts are subtrees, so the squares the end can be on
+     *   are the smallest of them, and the parts of two cut squares must not
+     *   be apart. The start cannot split the squares at all, and a cycle
+     *   cannot have any cut square.
+    **/
+    protected boolean isCutSquaresOk() {
+        if (count < 3)
+            return true;
+        
+        int[] parts = new int[width * height], part = new int[width * height];
+        for (int n = 1; n < count; n++) {
+            int w = order[n], v = parent[w];
+            if (low[w] >= disc[v]) {
+                parts[v]++;
+                part[v] = w;
+            }
+        }
+        
+        if (parts[start] > 1)
+            return fail(Test.CUT_SQUARE, "the start " + name(start) +
+                " splits the free squares into " + parts[start] + " parts");
+        
+        int cut = -1, first = 0, last = count;
+        for (int n = 1; n < count; n++) {
+            int v = order[n];
+            if (parts[v] == 0)
+                continue;
+            if (cycle)
+                return fail(Test.CUT_SQUARE, "square " + name(v) +
+                    " splits the free squares, so no cycle can pass it");
+            if (parts[v] > 1)
+                return fail(Test.CUT_SQUARE, "square " + name(v) +
+                    " splits the free squares into " + (parts[v] + 1) +
+                    " parts");
+            if (v == end)
+                return fail(Test.CUT_SQUARE, "the end " + name(v) +
+                    " splits the free squares into 2 parts");
+            
+            int w = part[v];
+            if (disc[w] + size[w] <= first || disc[w] >= last)
+                return fail(Test.CUT_SQUARE, "squares " + name(cut) +
+                    " and " + name(v) + " both split the free squares, " +
+                    "so the end has to be in two parts at once");
+            if (disc[w] >= first) {
+                cut = v;
+                first = disc[w];
+                last = disc[w] + size[w];
+            }
+        }
+        if (cut < 0)
+            return true;
+        
+        String side = " is on the start's side of square " + name(cut) +
+            ", which splits the free squares";
+        if (end >= 0 && (disc[end] < first || disc[end] >= last))
+            return fail(Test.CUT_SQUARE, "the end " + name(end) + side);
+        if (oneWay >= 0 && (disc[oneWay] < first || disc[oneWay] >= last))
+            return fail(Test.CUT_SQUARE, "the one-way square " +
+                name(oneWay) + side);
+        
+        for (int n = first; n < last; n++)
+            if (color(order[n]) == endColor)
+                return true;
+        return fail(Test.CUT_SQUARE, "the path has to end on a " +
+            colorName(endColor) + " square past square " + name(cut) +
+            ", which splits the free squares, but there is none");
+    }
+    
+    /**
+     * toString() (from Object)
+     *
+     * Description:
+     *   Returns the failed test and its certificate.
+    **/
+    @Override
+    public String toString() {
+        if (failed == null)
+            return "All checks passed.";
+        return "Failed check (" + failed + "): " + certificate + ".";
+    }
+}
\ No newline at end of file
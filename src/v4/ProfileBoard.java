@@ -0,0 +1,841 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import mypackages.algorithms.StateSpaceSearch;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.AbstractAction;
+
+/**
+ * ProfileBoard class that solves the path puzzle with a broken profile
+ * (plug) dynamic program instead of a search. The cells are visited one row
+ * at a time along the narrow side of the board, and each state only records
+ * how the path crosses the line between the visited and unvisited cells:
+ *   0 - no plug
+ *   1 - plug whose path piece continues to a later plug (open)
+ *   2 - plug whose path piece continues to an earlier plug (close)
+ *   3 - plug whose path piece ends at an endpoint of the path (single)
+ * plus whether the free end of the path has been placed. States reached in
+ * different ways are merged, so the time is linear in the long side of the
+ * board, but the number of states grows quickly with the narrow side.
+**/
+public class ProfileBoard implements
+StateSpaceSearch<ProfileBoard.Layer, ProfileBoard.StepAction, Boolean>, Solver {
+    /* widest narrow side worth choosing this engine for when counting; to
+     * find a single path (which a search often does quickly) the narrow
+     * side has to be at most MAX_FIND_WIDTH, or the long one at most
+     * MAX_FIND_LENGTH
+     */
+    protected static final int MAX_WIDTH = 10;
+    protected static final int MAX_FIND_WIDTH = 6, MAX_FIND_LENGTH = 16;
+    /* choice bits of a cell: the path leaves it to the right and/or down */
+    protected static final int RIGHT = 1, DOWN = 2;
+    /* stores the dimensions of the board */
+    protected Dimension bounds;
+    /* whether the rows of the program are the columns of the board */
+    protected boolean transposed;
+    /* width (narrow side) and height of the board as the program sees it */
+    protected int width, height;
+    /* blocked cells, start cell and last free cell (program order) */
+    protected boolean[] blocked;
+    protected int start, lastFree;
+    /* number of cells a complete path covers */
+    protected int pathLength;
+    /* cell the path has to end on (program order, -1 to end anywhere) */
+    protected int endCell = -1;
+    /* whether the path has to end next to the start, closing a cycle */
+    protected boolean cycle;
+    /* structural checks of the board */
+    protected Precheck precheck;
+    /* state bit set once the free end of the path is placed, and the mask
+     * of the plug bits
+     */
+    protected long endBit, plugMask;
+    /* states before and after the cell being visited */
+    protected Layer current, next;
+    /* index of the next cell to visit */
+    protected int cell;
+    /* number of complete paths found so far */
+    protected long total;
+    /* whether to remember the states before every 'span'-th cell (to
+     * rebuild a path), and the number of cells between two of them
+     */
+    protected boolean keepHistory;
+    protected int span;
+    /* keys of the states remembered, in layer order */
+    protected List<long[]> marks;
+    /* parent entry and choice of every state, for each cell of the stretch
+     * replayed by rebuildPath() (null when not replaying)
+     */
+    protected List<int[]> parents;
+    protected List<byte[]> choices;
+    /* cell and parent entry of the first complete path (-1 cell if none) */
+    protected int finishCell, finishParent;
+    /* stores the path found as linear indices of the board */
+    protected int[] path;
+    /* told about every path found by countPaths() (must stay null: the
+     * program only counts paths, it never holds them)
+     */
+    protected PathListener listener;
+    /* keeps track of the current state of the algorithm */
+    protected volatile State state;
+    /* stops the program when issued, or when the deadline passes */
+    protected StopFlag stop;
+    /* milliseconds the program may run for (0 for no limit) */
+    protected long timeLimit;
+    /* the single action of the program: visit the next cell */
+    protected List<StepAction> actions;
+    
+    /**
+     * Layer class holding the states of one step of the program in a hash
+     * table. Entries are kept in insertion order so they can be referred to
+     * by index.
+    **/
+    protected static class Layer {
+        protected long[] keys, counts;
+        protected int[] parents;
+        protected byte[] choices;
+        protected int[] slots;
+        protected int size;
+        
+        public Layer() {
+            keys = new long[64];
+            counts = new long[64];
+            parents = new int[64];
+            choices = new byte[64];
+            slots = new int[128];
+            Arrays.fill(slots, -1);
+        }
+        
+        public void clear() {
+            Arrays.fill(slots, -1);
+            size = 0;
+        }
+        
+        /**
+         * add()
+         *
+         * Description:
+         *   Adds the count of a state, inserting it if it is new. The parent
+         *   and choice of a state are those it was first reached with.
+        **/
+        public void add(long key, long count, int parent, int choice) {
+            int mask = slots.length - 1;
+            int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            for (; slots[i] >= 0; i = (i + 1) & mask)
+                if (keys[slots[i]] == key) {
+                    counts[slots[i]] = sum(counts[slots[i]], count);
+                    return;
+                }
+            
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, 2*size);
+                counts = Arrays.copyOf(counts, 2*size);
+                parents = Arrays.copyOf(parents, 2*size);
+                choices = Arrays.copyOf(choices, 2*size);
+            }
+            keys[size] = key;
+            counts[size] = count;
+            parents[size] = parent;
+            choices[size] = (byte) choice;
+            slots[i] = size++;
+            if (2*size > slots.length)
+                rehash();
+        }
+        
+        protected void rehash() {
+            slots = new int[2*slots.length];
+            Arrays.fill(slots, -1);
+            int mask = slots.length - 1;
+            for (int e = 0; e < size; e++) {
+                int i = (int) ((keys[e] * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+                while (slots[i] >= 0)
+                    i = (i + 1) & mask;
+                slots[i] = e;
+            }
+        }
+    }
+    
+    /**
+     * Constructor that initializes the board based on a 2D boolean array
+     * representation of the board and starting coordinates.
+    **/
+    public ProfileBoard(boolean[][] initState, int y, int x) {
+        if (initState == null || initState.length == 0 ||
+                initState[0] == null || initState[0].length == 0) {
+            System.err.println(
+                "Invalid Board Dimensions.\n" +
+                "\tBoard requires positive dimension."
+            );
+            throw new IllegalArgumentException();
+        }
+        
+        for (int i = 1; i < initState.length; i++)
+            if (initState[i] == null ||
+                    initState[i].length != initState[0].length) {
+                System.err.println(
+                    "Invalid Board Dimensions.\n\tBoard must be rectangular."
+                );
+                throw new IllegalArgumentException();
+            }
+        
+        if (y < 0 || y >= initState.length || x < 0 ||
+                x >= initState[0].length) {
+            System.err.println("Out-Of-Bounds Starting Point.");
+            throw new IllegalArgumentException();
+        }
+        
+        if (initState[y][x]) {
+            System.err.println("Invalid Starting Point.");
+            throw new IllegalArgumentException();
+        }
+        
+        bounds = new Dimension(initState[0].length, initState.length);
+        transposed = bounds.width > bounds.height;
+        width = Math.min(bounds.width, bounds.height);
+        height = Math.max(bounds.width, bounds.height);
+        blocked = new boolean[width * height];
+        for (int i = 0; i < bounds.height; i++)
+            for (int j = 0; j < bounds.width; j++)
+                if (initState[i][j])
+                    blocked[toCell(i * bounds.width + j)] = true;
+                else
+                    pathLength++;
+        
+        start = toCell(y * bounds.width + x);
+        for (int c = 0; c < blocked.length; c++)
+            if (!blocked[c])
+                lastFree = c;
+        
+        span = Math.max(1, (int) Math.sqrt(blocked.length));
+        precheck = new Precheck(initState, y, x);
+        plugMask = (1L << 2*(width+1)) - 1;
+        endBit = plugMask + 1;
+        state = State.STOPPED;
+        stop = new StopFlag();
+        actions = Collections.singletonList(new StepAction());
+        initialState();
+    }
+    
+    /**
+     * isNarrow()
+     *
+     * Description:
+     *   Determines whether a board is narrow enough for this engine to
+     *   count its paths, or to find one of them.
+    **/
+    public static boolean isNarrow(boolean[][] grid, boolean counting) {
+        int narrow = Math.min(grid.length, grid[0].length);
+        int length = Math.max(grid.length, grid[0].length);
+        return narrow <= MAX_WIDTH && (counting ||
+            narrow <= MAX_FIND_WIDTH || length <= MAX_FIND_LENGTH);
+    }
+    
+    /**
+     * setEnd()
+     *
+     * Description:
+     *   Sets the square the path has to end on.
+     *
+     * Inputs:
+     *   y, x - coordinates of the square (negative to end anywhere)
+    **/
+    public void setEnd(int y, int x) {
+        if (y < 0 || x < 0) {
+            endCell = -1;
+            precheck.setEnd(-1, -1);
+            return;
+        }
+        
+        if (y >= bounds.height || x >= bounds.width) {
+            System.err.println("Out-Of-Bounds End Point.");
+            throw new IllegalArgumentException();
+        }
+        
+        endCell = toCell(y * bounds.width + x);
+        if (blocked[endCell]) {
+            System.err.println("Invalid End Point.");
+            throw new IllegalArgumentException();
+        }
+        precheck.setEnd(y, x);
+    }
+    
+    /**
+     * setCycle()
+     *
+     * Description:
+     *   Sets whether the path has to end next to the start. The program
+     *   then looks for closed loops through every cell instead of paths.
+    **/
+    public void setCycle(boolean value) {
+        cycle = value;
+        precheck.setCycle(value);
+    }
+    
+    /**
+     * toCell(), fromCell()
+     *
+     * Description:
+     *   Convert a linear index of the board to the linear index of the
+     *   program (which runs along the columns if the board is wide), and
+     *   back.
+    **/
+    protected int toCell(int c) {
+        return (transposed)? (c % bounds.width) * width + c / bounds.width : c;
+    }
+    protected int fromCell(int c) {
+        return (transposed)? (c % width) * bounds.width + c / width : c;
+    }
+    
+    /**
+     * sum()
+     *
+     * Description:
+     *   Adds two counts, staying at Long.MAX_VALUE instead of overflowing.
+    **/
+    protected static long sum(long a, long b) {
+        long s = a + b;
+        return (s < 0)? Long.MAX_VALUE : s;
+    }
+    
+    /**
+     * initialState() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Resets the program to before the first cell: a single state with no
+     *   plugs.
+    **/
+    @Override
+    public void initialState() {
+        current = new Layer();
+        next = new Layer();
+        current.add(0, 1, -1, 0);
+        marks = new ArrayList<long[]>();
+        parents = null;
+        choices = null;
+        cell = 0;
+        total = 0;
+        finishCell = -1;
+        path = null;
+    }
+    
+    /**
+     * setTimeLimit()
+     *
+     * Description:
+     *   Sets how long the next search may run before it gives up.
+     *
+     * Inputs:
+     *   millis - time limit in milliseconds (0 for no limit)
+    **/
+    public void setTimeLimit(long millis) {
+        timeLimit = millis;
+    }
+    
+    /**
+     * stop()
+     *
+     * Description:
+     *   Stops the current search.
+    **/
+    public void stop() {
+        stop.stop();
+        state = State.STOPPED;
+    }
+    
+    /**
+     * isTimedOut() (from Solver)
+     *
+     * Description:
+     *   Returns whether the last search gave up because of its time limit.
+    **/
+    @Override
+    public boolean isTimedOut() {
+        return stop.isExpired();
+    }
+    
+    /**
+     * getStatistics() (from Solver)
+     *
+     * Description:
+     *   The profile engine keeps no counters.
+    **/
+    @Override
+    public Statistics getStatistics() {
+        return null;
+    }
+    
+    /**
+     * getPrecheck() (from Solver)
+     *
+     * Description:
+     *   Returns the structural checks made by isSolvable().
+    **/
+    @Override
+    public Precheck getPrecheck() {
+        return precheck;
+    }
+    
+    /**
+     * getState() (from Solver)
+     *
+     * Description:
+     *   Returns the current state of the algorithm.
+    **/
+    @Override
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * getPathCells() (from Solver)
+     *
+     * Description:
+     *   Returns the squares of the path found as linear indices (empty if
+     *   none).
+    **/
+    @Override
+    public int[] getPathCells() {
+        return (path != null)? path.clone() : new int[0];
+    }
+    
+    /**
+     * pathToString() (from Solver)
+     *
+     * Description:
+     *   Returns a string to represent the path found (empty if none).
+    **/
+    @Override
+    public String pathToString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; path != null && i < path.length; i++)
+            builder.append('[').append(path[i] / bounds.width).append(", ")
+                .append(path[i] % bounds.width).append("]\n");
+        return builder.toString();
+    }
+    
+    /**
+     * isSolvable() (from Solver)
+     *
+     * Description:
+     *   Runs the structural checks (see Precheck), then checks the colors
+     *   of the free cells: a path from the start alternates colors, so the
+     *   start's color must have exactly as many cells as the other one, or
+     *   one more. With a required end it must be one more exactly when the
+     *   end has the start's color, and a cycle needs as many of each.
+    **/
+    @Override
+    public boolean isSolvable() {
+        if (!precheck.run())
+            return false;
+        
+        int same = 0;
+        int color = (start / width + start % width) % 2;
+        for (int c = 0; c < blocked.length; c++)
+            if (!blocked[c] && (c / width + c % width) % 2 == color)
+                same++;
+        
+        if (cycle)
+            return pathLength > 2 && 2 * same == pathLength;
+        if (endCell >= 0)
+            return 2 * same - pathLength ==
+                (((endCell / width + endCell % width) % 2 == color)? 1 : 0);
+        return same == (pathLength + 1) / 2;
+    }
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Runs the program until the first complete path is found, then
+     *   rebuilds it. Stops when a 'stop' event is issued.
+    **/
+    @Override
+    public Boolean call() {
+        state = State.RUNNING;
+        stop = new StopFlag(timeLimit);
+        keepHistory = true;
+        initialState();
+        
+        if (findSolution()) {
+            state = State.FINISHED;
+            return true;
+        }
+        
+        state = State.STOPPED;
+        return false;
+    }
+    
+    /**
+     * solve() (from Solver)
+     *
+     * Description:
+     *   Runs the program on the calling thread (the same as call()).
+    **/
+    @Override
+    public boolean solve() {
+        return call();
+    }
+    
+    /**
+     * countPaths() (from Solver)
+     *
+     * Description:
+     *   Runs the program over every cell, adding up the paths of every state
+     *   that completes one. Counts too large for a long are reported as
+     *   Long.MAX_VALUE. Each cycle is counted twice, once per direction it
+     *   can be walked from the start. The paths cannot be listed, so a
+     *   listener set with setPathListener() is rejected.
+    **/
+    @Override
+    public long countPaths() {
+        if (listener != null) {
+            System.err.println("The profile engine cannot list paths.");
+            throw new IllegalArgumentException();
+        }
+        state = State.RUNNING;
+        stop = new StopFlag(timeLimit);
+        keepHistory = false;
+        initialState();
+        
+        if (pathLength == 1 && !cycle)
+            total = 1;
+        while (cell <= lastFree && !stop.checkDeadline())
+            step();
+        if (cycle)
+            total = sum(total, total);
+        
+        state = (stop.isStopped())? State.STOPPED : State.FINISHED;
+        return total;
+    }
+    
+    /**
+     * setPathListener() (from Solver)
+     *
+     * Description:
+     *   Sets the listener told about every path found by countPaths(). Only
+     *   null is supported: countPaths() rejects any other listener.
+    **/
+    @Override
+    public void setPathListener(PathListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * isGoal() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Determines whether a complete path has been found.
+    **/
+    @Override
+    public boolean isGoal() {
+        return finishCell >= 0 || path != null;
+    }
+    
+    /**
+     * actions() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Returns the single action of the program.
+    **/
+    @Override
+    public List<StepAction> actions(Layer state) {
+        return actions;
+    }
+    
+    /**
+     * findSolution() (from StateSpaceSearch)
+     *
+     * Description:
+     *   Visits cells until a complete path is found, then rebuilds it from
+     *   the states remembered along the way.
+     *
+     * Return Value:
+     *   boolean - true if a path was found
+     *           - false if there is none or the program was stopped
+    **/
+    @Override
+    public boolean findSolution() {
+        if (pathLength == 1 && !cycle) {
+            path = new int[] {fromCell(start)};
+            return true;
+        }
+        
+        while (!isGoal() && cell <= lastFree && !stop.checkDeadline())
+            step();
+        
+        if (!isGoal())
+            return false;
+        rebuildPath();
+        return true;
+    }
+    
+    /**
+     * step()
+     *
+     * Description:
+     *   Visits the next cell: every state of the current layer is extended
+     *   with each way the path may pass through the cell, and the results
+     *   are merged into the next layer.
+    **/
+    protected void step() {
+        int i = cell / width, j = cell % width;
+        if (keepHistory && cell % span == 0)
+            marks.add(Arrays.copyOf(current.keys, current.size));
+        next.clear();
+        for (int e = 0; e < current.size; e++)
+            expand(i, j, current.keys[e], current.counts[e], e);
+        
+        if (parents != null) {
+            parents.add(Arrays.copyOf(next.parents, next.size));
+            choices.add(Arrays.copyOf(next.choices, next.size));
+        }
+        Layer layer = current;
+        current = next;
+        next = layer;
+        cell++;
+    }
+    
+    /**
+     * plug()
+     *
+     * Description:
+     *   Returns the plug at the given position of a state.
+    **/
+    protected static int plug(long key, int p) {
+        return (int) (key >>> 2*p) & 3;
+    }
+    
+    /**
+     * match()
+     *
+     * Description:
+     *   Returns the position of the plug at the other end of the path piece
+     *   of the open (or close) plug at position p. Single plugs are skipped.
+    **/
+    protected int match(long key, int p) {
+        int depth = 0;
+        if (plug(key, p) == 1) {
+            for (int q = p; q <= width; q++)
+                if (plug(key, q) == 1)
+                    depth++;
+                else if (plug(key, q) == 2 && --depth == 0)
+                    return q;
+        } else {
+            for (int q = p; q >= 0; q--)
+                if (plug(key, q) == 2)
+                    depth++;
+                else if (plug(key, q) == 1 && --depth == 0)
+                    return q;
+        }
+        return -1;
+    }
+    
+    /**
+     * relabel()
+     *
+     * Description:
+     *   Returns the state with the plug matching the one at position p of
+     *   'key' changed to the given value.
+    **/
+    protected long relabel(long rest, long key, int p, int value) {
+        int q = match(key, p);
+        return (rest & ~(3L << 2*q)) | ((long) value << 2*q);
+    }
+    
+    /**
+     * expand()
+     *
+     * Description:
+     *   Adds to the next layer every state reached by passing through cell
+     *   (i, j) from the given state. For cell j the plug at position j comes
+     *   from the left and the one at j+1 from above; afterwards they hold
+     *   the plugs going down and to the right.
+     *
+     * Inputs:
+     *   i, j - row and column of the cell (program order)
+     *   key - state before the cell
+     *   count - number of ways the state was reached
+     *   e - index of the state in the current layer
+    **/
+    protected void expand(int i, int j, long key, long count, int e) {
+        int left = plug(key, j), up = plug(key, j+1);
+        long rest = key & ~((3L << 2*j) | (3L << 2*(j+1)));
+        boolean canDown = i+1 < height && !blocked[cell + width];
+        boolean canRight = j+1 < width && !blocked[cell + 1];
+        
+        if (blocked[cell]) {
+            if (left == 0 && up == 0)
+                emit(rest, j, 0, 0, count, e);
+            return;
+        }
+        
+        if (cycle || (cell != start && cell != endCell)) {
+            if (left == 0 && up == 0) {
+                if (canDown && canRight)
+                    emit(rest, j, 1, 2, count, e);
+            } else if (left == 0 || up == 0) {
+                if (canDown)
+                    emit(rest, j, left | up, 0, count, e);
+                if (canRight)
+                    emit(rest, j, 0, left | up, count, e);
+            } else if (left == 1 && up == 2) {
+                if (cycle)
+                    finish(rest, count, e);
+            } else if (left == 3 && up == 3) {
+                finish(rest, count, e);
+            } else if (left == 3 || up == 3) {
+                emit(relabel(rest, key, (left == 3)? j+1 : j, 3),
+                    j, 0, 0, count, e);
+            } else if (left == 2 && up == 1) {
+                emit(rest, j, 0, 0, count, e);
+            } else if (left == 1 && up == 1) {
+                emit(relabel(rest, key, j+1, 1), j, 0, 0, count, e);
+            } else if (left == 2 && up == 2) {
+                emit(relabel(rest, key, j, 2), j, 0, 0, count, e);
+            }
+        }
+        
+        if (!cycle && (cell == start ||
+                ((endCell < 0)? (key & endBit) == 0 : cell == endCell))) {
+            if (cell != start)
+                rest |= endBit;
+            if (left == 0 && up == 0) {
+                if (canDown)
+                    emit(rest, j, 3, 0, count, e);
+                if (canRight)
+                    emit(rest, j, 0, 3, count, e);
+            } else if ((left | up) == 3 && (left == 0 || up == 0)) {
+                finish(rest, count, e);
+            } else if (left == 0 || up == 0) {
+                emit(relabel(rest, key, (left == 0)? j+1 : j, 3),
+                    j, 0, 0, count, e);
+            }
+        }
+    }
+    
+    /**
+     * emit()
+     *
+     * Description:
+     *   Adds a state to the next layer given its down and right plugs. At
+     *   the end of a row the right plug must be empty, and the plugs move
+     *   over by one position for the next row.
+    **/
+    protected void emit(long rest, int j, int down, int right, long count,
+            int e) {
+        int choice = ((down != 0)? DOWN : 0) | ((right != 0)? RIGHT : 0);
+        long key = rest | ((long) down << 2*j) | ((long) right << 2*(j+1));
+        if (j == width-1) {
+            if (right != 0)
+                return;
+            key = ((key & plugMask) << 2) & plugMask | (key & endBit);
+        }
+        next.add(key, count, e, choice);
+    }
+    
+    /**
+     * finish()
+     *
+     * Description:
+     *   Completes the path at the current cell if it is the last free cell
+     *   and no other plugs are left.
+     *
+     * Inputs:
+     *   rest - state without the plugs of the current cell
+     *   count - number of ways the state was reached
+     *   e - index of the state in the current layer
+    **/
+    protected void finish(long rest, long count, int e) {
+        if (cell != lastFree || (rest & plugMask) != 0)
+            return;
+        total = sum(total, count);
+        if (finishCell < 0) {
+            finishCell = cell;
+            finishParent = e;
+        }
+    }
+    
+    /**
+     * rebuildPath()
+     *
+     * Description:
+     *   Rebuilds the first complete path from the choices of its states, by
+     *   linking each cell to the cells it goes right and down to, and then
+     *   walking the links from the start. The last cell only links to
+     *   earlier cells, so it has no choice of its own. The choices are only
+     *   kept for one stretch of 'span' cells at a time, replayed from the
+     *   states remembered at its first cell, last stretch first.
+    **/
+    protected void rebuildPath() {
+        int[][] links = new int[blocked.length][2];
+        int[] degree = new int[blocked.length];
+        int e = finishParent, reached = cell;
+        keepHistory = false;
+        
+        for (int first = (finishCell-1) / span * span; first >= 0;
+                first -= span) {
+            replay(first, Math.min(first + span, finishCell));
+            for (int c = cell-1; c >= first; c--) {
+                int choice = choices.get(c - first)[e];
+                e = parents.get(c - first)[e];
+                if ((choice & RIGHT) != 0) {
+                    links[c][degree[c]++] = c + 1;
+                    links[c+1][degree[c+1]++] = c;
+                }
+                if ((choice & DOWN) != 0) {
+                    links[c][degree[c]++] = c + width;
+                    links[c+width][degree[c+width]++] = c;
+                }
+            }
+        }
+        parents = null;
+        choices = null;
+        cell = reached;
+        
+        path = new int[pathLength];
+        for (int k = 0, c = start, previous = -1; k < pathLength; k++) {
+            path[k] = fromCell(c);
+            int following = (links[c][0] != previous)?
+                links[c][0] : links[c][1];
+            previous = c;
+            c = following;
+        }
+    }
+    
+    /**
+     * replay()
+     *
+     * Description:
+     *   Visits the cells from 'first' up to (not including) 'last' again,
+     *   starting from the states remembered at 'first' in the same order,
+     *   so the entries get the same indices as the first time, and keeps
+     *   the parent and choice of every state along the way.
+    **/
+    protected void replay(int first, int last) {
+        current = new Layer();
+        for (long key : marks.get(first / span))
+            current.add(key, 1, -1, 0);
+        parents = new ArrayList<int[]>();
+        choices = new ArrayList<byte[]>();
+        for (cell = first; cell < last; )
+            step();
+    }
+    
+    /**
+     * StepAction class visits the next cell of the program
+    **/
+    protected class StepAction extends AbstractAction {
+        public void actionPerformed(ActionEvent e) {
+            if (state == State.STOPPED && cell <= lastFree)
+                step();
+        }
+    }
+}
\ No newline at end of file
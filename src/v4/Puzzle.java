@@ -0,0 +1,92 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Puzzle class that holds a board read from a puzzle file: which squares are
+ * blocked and the starting coordinates
+**/
+class Puzzle {
+    /* name of the puzzle (file it was read from) */
+    protected String name;
+    /* grid of blocked squares (true if blocked) */
+    protected boolean[][] grid;
+    /* starting coordinates */
+    protected int y, x;
+    /* coordinates of the square the path has to end on (negative if the
+     * file does not give one)
+     */
+    protected int endY = -1, endX = -1;
+    /* path the file gives, as linear indices (null if it gives none, empty
+     * if the puzzle is known to have no path)
+     */
+    protected int[] solution;
+    
+    /**
+     * Constructor that creates a puzzle from its parts.
+    **/
+    public Puzzle(String name, boolean[][] grid, int y, int x) {
+        this.name = name;
+        this.grid = grid;
+        this.y = y;
+        this.x = x;
+    }
+    
+    /**
+     * read()
+     *
+     * Description:
+     *   Reads a puzzle file in the 't f rows columns grid y x [ey ex]'
+     *   format, where 't' and 'f' are the tokens used in the grid for
+     *   blocked and free squares, and 'ey ex' (optional) is the square the
+     *   path has to end on (see PuzzleReader), or in the binary format (see
+     *   BinaryPuzzle), which is mapped into memory instead of read.
+     *
+     * Inputs:
+     *   file - path of the file to read
+     *
+     * Return Value:
+     *   Puzzle - puzzle read from the file
+    **/
+    public static Puzzle read(String file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            if (PuzzleArchive.isArchive(channel))
+                throw new IOException(file + ": Puzzle archive, choose one" +
+                    " of its puzzles by id");
+            if (BinaryPuzzle.isBinary(channel))
+                return BinaryPuzzle.decode(file, channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size()
+                ));
+            return new PuzzleReader(file, channel).read();
+        }
+    }
+    
+    /**
+     * read()
+     *
+     * Description:
+     *   Reads a puzzle in the same format from any source, and closes it.
+     *
+     * Inputs:
+     *   name - name of the puzzle
+     *   source - bytes of the puzzle
+     *
+     * Return Value:
+     *   Puzzle - puzzle read
+    **/
+    public static Puzzle read(String name, InputStream source)
+            throws IOException {
+        try (ReadableByteChannel channel = Channels.newChannel(source)) {
+            return new PuzzleReader(name, channel).read();
+        }
+    }
+}
\ No newline at end of file
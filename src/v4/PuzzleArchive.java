@@ -0,0 +1,329 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * PuzzleArchive class that holds many puzzles in a single file, so a corpus
+ * is opened and mapped into memory once instead of once per puzzle. The
+ * file holds, in big-endian order:
+ *   header   4 bytes  'H' 'P' 'A' VERSION
+ *   records  the puzzles in the binary format (see BinaryPuzzle), back to
+ *            back
+ *   index    for every puzzle, the offset of its record (8 bytes) and its
+ *            name (2 bytes of length, then UTF-8)
+ *   trailer  offset of the index (8 bytes), number of puzzles (4 bytes)
+ *            and the header again
+ * Puzzles are read by id (their position in the file, from 0) in any order
+ * and from any number of threads, or one after the other by iterating.
+**/
+class PuzzleArchive implements Closeable, Iterable<Puzzle> {
+    /* first bytes of an archive (and last, after the version) */
+    protected static final byte[] MAGIC = {'H', 'P', 'A'};
+    /* version of the format written */
+    protected static final int VERSION = 1;
+    /* bytes of the header and of the trailer */
+    protected static final int HEADER = 4, TRAILER = 16;
+    /* name of the archive, used in error messages */
+    protected final String name;
+    /* open file, and all of it mapped if it fits a single buffer (null
+     * otherwise, each record is then mapped when read)
+     */
+    protected final FileChannel channel;
+    protected final ByteBuffer mapped;
+    /* offset of every record, and of the index after the last one */
+    protected final long[] offsets;
+    /* name of every puzzle */
+    protected final String[] names;
+    
+    /**
+     * Constructor that opens an archive and reads its index.
+    **/
+    public PuzzleArchive(String file) throws IOException {
+        name = file;
+        channel = new FileInputStream(file).getChannel();
+        try {
+            long size = channel.size();
+            if (size < HEADER + TRAILER || !isArchive(channel))
+                throw new IOException(file + ": Not a puzzle archive");
+            ByteBuffer trailer = map(size - TRAILER, TRAILER);
+            long index = trailer.getLong();
+            int count = trailer.getInt();
+            if (!hasMagic(trailer) || index < HEADER || count < 0 ||
+                    index > size - TRAILER)
+                throw new IOException(file + ": Damaged archive trailer");
+            
+            mapped = (size <= Integer.MAX_VALUE)? map(0, size) : null;
+            ByteBuffer entries = map(index, size - TRAILER - index);
+            offsets = new long[count + 1];
+            names = new String[count];
+            for (int id = 0; id < count; id++) {
+                if (entries.remaining() < 10)
+                    throw new IOException(file + ": Damaged archive index");
+                offsets[id] = entries.getLong();
+                byte[] bytes = new byte[entries.getShort() & 0xFFFF];
+                if (entries.remaining() < bytes.length ||
+                        offsets[id] < HEADER || offsets[id] >= index ||
+                        (id > 0 && offsets[id] <= offsets[id-1]))
+                    throw new IOException(file + ": Damaged archive index");
+                entries.get(bytes);
+                names[id] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            offsets[count] = index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * isArchive()
+     *
+     * Description:
+     *   Determines whether a file starts with the header of an archive.
+     *
+     * Inputs:
+     *   channel - open file
+    **/
+    public static boolean isArchive(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                return false;
+        header.flip();
+        return hasMagic(header);
+    }
+    
+    /**
+     * isArchive()
+     *
+     * Description:
+     *   Determines whether a file is an archive.
+     *
+     * Inputs:
+     *   file - path of the file
+    **/
+    public static boolean isArchive(String file) {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            return isArchive(channel);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * hasMagic()
+     *
+     * Description:
+     *   Reads the header (or its copy in the trailer) and checks it.
+    **/
+    protected static boolean hasMagic(ByteBuffer buffer) {
+        for (byte b : MAGIC)
+            if (buffer.get() != b)
+                return false;
+        return buffer.get() == VERSION;
+    }
+    
+    /**
+     * map()
+     *
+     * Description:
+     *   Returns a read-only view of part of the file.
+    **/
+    protected ByteBuffer map(long offset, long length) throws IOException {
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.limit((int) (offset + length)).position((int) offset);
+            return view.slice();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+    
+    /**
+     * size()
+     *
+     * Description:
+     *   Returns the number of puzzles.
+    **/
+    public int size() {
+        return names.length;
+    }
+    
+    /**
+     * getName()
+     *
+     * Description:
+     *   Returns the name of a puzzle.
+    **/
+    public String getName(int id) {
+        return names[id];
+    }
+    
+    /**
+     * get()
+     *
+     * Description:
+     *   Reads a puzzle by id. Safe to call from several threads.
+     *
+     * Inputs:
+     *   id - position of the puzzle in the archive
+     *
+     * Return Value:
+     *   Puzzle - puzzle read
+    **/
+    public Puzzle get(int id) throws IOException {
+        if (id < 0 || id >= names.length)
+            throw new IOException(name + ": No puzzle " + id + " (has " +
+                names.length + ")");
+        return BinaryPuzzle.decode(names[id],
+            map(offsets[id], offsets[id+1] - offsets[id]));
+    }
+    
+    /**
+     * read()
+     *
+     * Description:
+     *   Reads a single puzzle of an archive file.
+     *
+     * Inputs:
+     *   file - path of the archive
+     *   id - position of the puzzle in the archive
+    **/
+    public static Puzzle read(String file, int id) throws IOException {
+        try (PuzzleArchive archive = new PuzzleArchive(file)) {
+            return archive.get(id);
+        }
+    }
+    
+    /**
+     * iterator() (from Iterable)
+     *
+     * Description:
+     *   Returns the puzzles in order. A puzzle that cannot be read ends the
+     *   iteration with an IllegalStateException.
+    **/
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return new Iterator<Puzzle>() {
+            protected int id;
+            @Override
+            public boolean hasNext() {return id < names.length;}
+            @Override
+            public Puzzle next() {
+                if (id >= names.length)
+                    throw new NoSuchElementException();
+                try {
+                    return get(id++);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+    
+    /**
+     * close() (from Closeable)
+    **/
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /**
+     * Writer class that writes an archive one puzzle at a time, without
+     * keeping the puzzles in memory. The index is written on close().
+    **/
+    protected static class Writer implements Closeable {
+        /* file being written, and the number of bytes written so far */
+        protected final DataOutputStream out;
+        protected long size;
+        /* offsets and names of the puzzles written */
+        protected long[] offsets = new long[16];
+        protected String[] names = new String[16];
+        protected int count;
+        
+        /**
+         * Constructor that creates (or replaces) an archive file.
+        **/
+        public Writer(String file) throws IOException {
+            out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16)
+            );
+            out.write(MAGIC);
+            out.write(VERSION);
+            size = HEADER;
+        }
+        
+        /**
+         * add()
+         *
+         * Description:
+         *   Appends a puzzle, already encoded (see BinaryPuzzle.encode()).
+         *
+         * Inputs:
+         *   name - name of the puzzle
+         *   record - bytes of the puzzle
+        **/
+        public void add(String name, byte[] record) throws IOException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+            }
+            offsets[count] = size;
+            names[count++] = name;
+            out.write(record);
+            size += record.length;
+        }
+        
+        /**
+         * add()
+         *
+         * Description:
+         *   Appends a puzzle under its own name.
+        **/
+        public void add(Puzzle puzzle) throws IOException {
+            add(puzzle.name, BinaryPuzzle.encode(puzzle));
+        }
+        
+        /**
+         * close() (from Closeable)
+         *
+         * Description:
+         *   Writes the index and the trailer, and closes the file.
+        **/
+        @Override
+        public void close() throws IOException {
+            try {
+                long index = size;
+                for (int id = 0; id < count; id++) {
+                    byte[] bytes = names[id].getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > 0xFFFF)
+                        bytes = Arrays.copyOf(bytes, 0xFFFF);
+                    out.writeLong(offsets[id]);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeLong(index);
+                out.writeInt(count);
+                out.write(MAGIC);
+                out.write(VERSION);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
\ No newline at end of file
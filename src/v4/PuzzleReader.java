@@ -0,0 +1,288 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * PuzzleReader class that reads puzzles in the 't f rows columns grid y x
+ * [ey ex]' format straight from the bytes of a channel, through one reused
+ * buffer. Tokens are compared in place instead of being turned into
+ * strings, so reading a large grid allocates nothing per square, and errors
+ * tell the line and column of the token at fault.
+**/
+class PuzzleReader {
+    /* bytes read from the channel at a time (also the longest token) */
+    protected static final int BUFFER_SIZE = 1 << 16;
+    /* name of the source, used in error messages */
+    protected final String name;
+    /* source of the bytes */
+    protected final ReadableByteChannel channel;
+    /* buffer of bytes read and the channel's view of it */
+    protected final byte[] bytes;
+    protected final ByteBuffer buffer;
+    /* index of the next byte to read and of the end of the bytes read */
+    protected int next, limit;
+    /* offset in the source of the first byte of the buffer */
+    protected long offset;
+    /* line being read and the offset in the source where it starts */
+    protected int line = 1;
+    protected long lineStart;
+    /* current token: where it starts and ends in the buffer, and its line
+     * and column in the source
+     */
+    protected int tokenStart, tokenEnd, tokenLine;
+    protected long tokenColumn;
+    /* whether the channel has no bytes left */
+    protected boolean eof;
+    
+    /**
+     * Constructor that starts reading the given channel.
+    **/
+    public PuzzleReader(String name, ReadableByteChannel channel) {
+        this.name = name;
+        this.channel = channel;
+        bytes = new byte[BUFFER_SIZE];
+        buffer = ByteBuffer.wrap(bytes);
+    }
+    
+    /**
+     * read()
+     *
+     * Description:
+     *   Reads a puzzle.
+     *
+     * Return Value:
+     *   Puzzle - puzzle read
+    **/
+    public Puzzle read() throws IOException {
+        byte[] t = next("blocked square token");
+        byte[] f = next("free square token");
+        int rows = nextInt("number of rows");
+        if (rows <= 0)
+            throw error("Invalid Board Dimensions");
+        int columns = nextInt("number of columns");
+        if (columns <= 0)
+            throw error("Invalid Board Dimensions");
+        
+        boolean[][] grid = new boolean[rows][columns];
+        for (int y = 0; y < rows; y++)
+            for (int x = 0; x < columns; x++) {
+                if (!nextToken())
+                    throw error("Unexpected EOF, expected square (" + y +
+                        ", " + x + ")");
+                if (matches(t))
+                    grid[y][x] = true;
+                else if (!matches(f))
+                    throw error("Invalid item '" + token() + "'");
+            }
+        
+        Puzzle puzzle = new Puzzle(name, grid, nextInt("starting row"),
+            nextInt("starting column"));
+        if (nextToken() && isInt()) {
+            puzzle.endY = toInt("ending row");
+            puzzle.endX = nextInt("ending column");
+        }
+        return puzzle;
+    }
+    
+    /**
+     * error()
+     *
+     * Description:
+     *   Returns the exception reporting a malformed puzzle at the current
+     *   token.
+    **/
+    protected IOException error(String message) {
+        return new IOException(name + ":" + tokenLine + ":" + tokenColumn +
+            ": " + message);
+    }
+    
+    /**
+     * fill()
+     *
+     * Description:
+     *   Reads more bytes from the channel, first moving the current token to
+     *   the front of the buffer so it stays whole.
+     *
+     * Return Value:
+     *   boolean - true if bytes were read
+     *           - false at the end of the channel
+    **/
+    protected boolean fill() throws IOException {
+        if (eof)
+            return false;
+        if (tokenStart > 0) {
+            System.arraycopy(bytes, tokenStart, bytes, 0, limit - tokenStart);
+            offset += tokenStart;
+            next -= tokenStart;
+            limit -= tokenStart;
+            tokenStart = 0;
+        } else if (limit == bytes.length) {
+            throw error("Token is too long");
+        }
+        
+        buffer.limit(bytes.length).position(limit);
+        int count;
+        do {
+            count = channel.read(buffer);
+        } while (count == 0);
+        if (count < 0) {
+            eof = true;
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+    
+    /**
+     * nextToken()
+     *
+     * Description:
+     *   Moves to the next token, skipping white space.
+     *
+     * Return Value:
+     *   boolean - true if there was one
+     *           - false at the end of the channel
+    **/
+    protected boolean nextToken() throws IOException {
+        for (;;) {
+            if (next == limit) {
+                tokenStart = next;
+                if (!fill())
+                    break;
+            }
+            byte b = bytes[next];
+            if (b == '\n') {
+                line++;
+                lineStart = offset + next + 1;
+            } else if (!isSpace(b)) {
+                break;
+            }
+            next++;
+        }
+        
+        tokenStart = next;
+        tokenLine = line;
+        tokenColumn = offset + next - lineStart + 1;
+        while (next < limit || fill())
+            if (isSpace(bytes[next]))
+                break;
+            else
+                next++;
+        tokenEnd = next;
+        return tokenEnd > tokenStart;
+    }
+    
+    /**
+     * isSpace()
+     *
+     * Description:
+     *   Determines whether a byte is white space.
+    **/
+    protected static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f';
+    }
+    
+    /**
+     * matches()
+     *
+     * Description:
+     *   Determines whether the current token is the given word.
+    **/
+    protected boolean matches(byte[] word) {
+        if (tokenEnd - tokenStart != word.length)
+            return false;
+        for (int i = 0; i < word.length; i++)
+            if (bytes[tokenStart + i] != word[i])
+                return false;
+        return true;
+    }
+    
+    /**
+     * token()
+     *
+     * Description:
+     *   Returns the current token as text.
+    **/
+    protected String token() {
+        return new String(bytes, tokenStart, tokenEnd - tokenStart,
+            StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * next()
+     *
+     * Description:
+     *   Moves to the next token and returns a copy of its bytes.
+     *
+     * Inputs:
+     *   what - what the token stands for, used in error messages
+    **/
+    protected byte[] next(String what) throws IOException {
+        if (!nextToken())
+            throw error("Unexpected EOF, expected " + what);
+        return Arrays.copyOfRange(bytes, tokenStart, tokenEnd);
+    }
+    
+    /**
+     * nextInt()
+     *
+     * Description:
+     *   Moves to the next token and returns it as an integer.
+     *
+     * Inputs:
+     *   what - what the number stands for, used in error messages
+    **/
+    protected int nextInt(String what) throws IOException {
+        if (!nextToken())
+            throw error("Unexpected EOF, expected " + what);
+        return toInt(what);
+    }
+    
+    /**
+     * isInt()
+     *
+     * Description:
+     *   Determines whether the current token is an integer.
+    **/
+    protected boolean isInt() {
+        int i = tokenStart;
+        if (i < tokenEnd && bytes[i] == '-')
+            i++;
+        if (i == tokenEnd)
+            return false;
+        for (; i < tokenEnd; i++)
+            if (bytes[i] < '0' || bytes[i] > '9')
+                return false;
+        return true;
+    }
+    
+    /**
+     * toInt()
+     *
+     * Description:
+     *   Returns the current token as an integer.
+     *
+     * Inputs:
+     *   what - what the number stands for, used in error messages
+    **/
+    protected int toInt(String what) throws IOException {
+        if (!isInt())
+            throw error("Expected " + what + ", found '" + token() + "'");
+        boolean negative = bytes[tokenStart] == '-';
+        long value = 0;
+        for (int i = tokenStart + ((negative)? 1 : 0); i < tokenEnd; i++) {
+            value = value * 10 + (bytes[i] - '0');
+            if (value > Integer.MAX_VALUE)
+                throw error("Value of " + what + " is too large");
+        }
+        return (int) ((negative)? -value : value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * SearchStats class that holds the counters of the boards searched by a
+ * single thread. Only that thread writes them, so counting is a plain field
+ * update with no locking or shared cache lines; other threads reading them
+ * (e.g. through JMX) may see values that are slightly behind.
+**/
+class SearchStats {
+    /* name of the thread the counters belong to */
+    protected final String name;
+    /* number of calls to findSolution() */
+    protected long nodes;
+    /* number of moves undone (pruned or with a failed subtree) */
+    protected long backtracks;
+    /* number of moves rejected for splitting the free squares */
+    protected long blobPrunes;
+    /* number of moves rejected for leaving two dead end squares */
+    protected long singlePrunes;
+    /* number of boards rejected for their square colors */
+    protected long parityPrunes;
+    /* number of moves skipped as mirror images of other moves */
+    protected long symmetryPrunes;
+    /* number of states skipped as known dead ends */
+    protected long deadEndHits;
+    /* longest path reached */
+    protected int maxDepth;
+    /* nanoseconds spent searching */
+    protected long busyNanos;
+    /* number of nested begin() calls, and when the outermost one began */
+    protected int active;
+    protected long started;
+    
+    /**
+     * Constructor that creates the counters of the given thread.
+    **/
+    public SearchStats(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * begin()
+     *
+     * Description:
+     *   Marks the start of a search on this thread. Calls may nest (e.g. a
+     *   fork/join task running another one while it waits), only the
+     *   outermost one is timed.
+    **/
+    public void begin() {
+        if (active++ == 0)
+            started = System.nanoTime();
+    }
+    
+    /**
+     * end()
+     *
+     * Description:
+     *   Marks the end of a search begun by begin().
+    **/
+    public void end() {
+        if (--active == 0)
+            busyNanos += System.nanoTime() - started;
+    }
+    
+    /**
+     * writeTo()
+     *
+     * Description:
+     *   Writes the counters to a stream (see addFrom()).
+    **/
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(nodes);
+        out.writeLong(backtracks);
+        out.writeLong(blobPrunes);
+        out.writeLong(singlePrunes);
+        out.writeLong(parityPrunes);
+        out.writeLong(symmetryPrunes);
+        out.writeLong(deadEndHits);
+        out.writeInt(maxDepth);
+        out.writeLong(busyNanos);
+    }
+    
+    /**
+     * addFrom()
+     *
+     * Description:
+     *   Reads counters written by writeTo() and adds them to these.
+    **/
+    public void addFrom(DataInputStream in) throws IOException {
+        nodes += in.readLong();
+        backtracks += in.readLong();
+        blobPrunes += in.readLong();
+        singlePrunes += in.readLong();
+        parityPrunes += in.readLong();
+        symmetryPrunes += in.readLong();
+        deadEndHits += in.readLong();
+        maxDepth = Math.max(maxDepth, in.readInt());
+        busyNanos += in.readLong();
+    }
+}
\ No newline at end of file
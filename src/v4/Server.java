@@ -0,0 +1,374 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Server class that keeps the solver running as an HTTP service on the local
+ * machine, so the JVM, its compiled code and its threads are reused by every
+ * request instead of being started for each puzzle. Puzzles are posted to
+ * /solve either in the puzzle file format or as a JSON object:
+ *   {"grid": [[0, 1, 0], ...], "start": [y, x], "end": [y, x],
+ *    "cycle": false, "count": false, "timeout": ms}
+ * where 1 (or true) marks a blocked square and rows may also be strings
+ * such as "0 1 0" or ".#.". Only "grid" and "start" are required, and the
+ * query string may set 'timeout', 'count' and 'cycle' as well. Each request
+ * runs on one thread of a pool of 'numThreads' and is answered with:
+ *   {"status": "FOUND", "ms": 12, "path": [[y, x], ...]}
+ * or a NONE (with the failed check if one did), TIMEOUT, COUNTED (with the
+ * count) or ERROR (with a message) status. Boards of more than MAX_CELLS
+ * squares are refused, and the search runs on threads with stacks deep
+ * enough for the largest board.
+**/
+public class Server implements Runnable {
+    /* largest request body read, in bytes */
+    protected static final int MAX_BODY = 1 << 20;
+    /* largest board solved, in squares */
+    protected static final int MAX_CELLS = 1 << 18;
+    /* settings every request starts from */
+    protected Options options;
+    /* HTTP server listening on the loopback address */
+    protected HttpServer server;
+    /* threads answering the requests */
+    protected ExecutorService pool;
+    
+    /**
+     * Constructor that binds the server to the given port of the loopback
+     * address.
+    **/
+    public Server(int port, Options options) throws IOException {
+        this.options = options;
+        server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0
+        );
+        pool = GameBoard.newPool(options.numThreads);
+        server.setExecutor(pool);
+        server.createContext("/solve", this::handle);
+    }
+    
+    /**
+     * run() (from Runnable)
+     *
+     * Description:
+     *   Starts answering requests. The server's threads keep running after
+     *   this returns, until the process is stopped.
+    **/
+    @Override
+    public void run() {
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        System.err.println("Listening on http://" + address.getHostString() +
+            ":" + address.getPort() + "/solve");
+    }
+    
+    /**
+     * handle()
+     *
+     * Description:
+     *   Answers a request to /solve.
+     *
+     * Inputs:
+     *   exchange - request and its response
+    **/
+    protected void handle(HttpExchange exchange) throws IOException {
+        int code = 200;
+        String answer;
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                code = 405;
+                answer = error("Puzzles have to be sent with POST");
+            } else {
+                Options settings = options.copy();
+                settings.numThreads = 1;
+                readQuery(exchange.getRequestURI().getRawQuery(), settings);
+                Puzzle puzzle = readPuzzle(readBody(exchange), settings);
+                check(puzzle, settings);
+                answer = solve(puzzle, settings);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            code = 400;
+            answer = error((e.getMessage() != null)?
+                e.getMessage() : "Invalid puzzle");
+        } catch (RuntimeException e) {
+            code = 500;
+            answer = error(String.valueOf(e));
+        } catch (StackOverflowError e) {
+            code = 500;
+            answer = error("The search ran out of stack");
+        }
+        
+        byte[] bytes = answer.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+            "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    /**
+     * readBody()
+     *
+     * Description:
+     *   Reads the request body as UTF-8 text, up to MAX_BODY bytes.
+    **/
+    protected static String readBody(HttpExchange exchange)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                if (body.size() + n > MAX_BODY)
+                    throw new IOException("Request body is too large");
+                body.write(buffer, 0, n);
+            }
+        }
+        return body.toString("UTF-8");
+    }
+    
+    /**
+     * readQuery()
+     *
+     * Description:
+     *   Applies the 'timeout', 'count' and 'cycle' query parameters.
+    **/
+    protected static void readQuery(String query, Options settings)
+            throws IOException {
+        if (query == null)
+            return;
+        for (String parameter : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            String value = (pair.length > 1)? pair[1] : "true";
+            try {
+                if (pair[0].equals("timeout"))
+                    settings.limit = Long.parseLong(value);
+                else if (pair[0].equals("count"))
+                    settings.count = Boolean.parseBoolean(value);
+                else if (pair[0].equals("cycle"))
+                    settings.cycle = Boolean.parseBoolean(value);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid value of '" + pair[0] + "'");
+            }
+        }
+    }
+    
+    /**
+     * readPuzzle()
+     *
+     * Description:
+     *   Reads the puzzle of a request body, which is JSON if it starts with
+     *   '{' and the puzzle file format otherwise. The JSON settings are
+     *   applied to 'settings'.
+    **/
+    protected static Puzzle readPuzzle(String body, Options settings)
+            throws IOException {
+        if (!body.trim().startsWith("{")) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            return Puzzle.read("request", new ByteArrayInputStream(bytes));
+        }
+        
+        Map<?, ?> map = (Map<?, ?>) Json.parse(body);
+        Object grid = map.get("grid");
+        if (!(grid instanceof List) || ((List<?>) grid).isEmpty())
+            throw new IOException("Missing 'grid'");
+        List<?> rows = (List<?>) grid;
+        boolean[][] blocked = new boolean[rows.size()][];
+        for (int i = 0; i < rows.size(); i++)
+            blocked[i] = readRow(rows.get(i));
+        
+        int[] start = readSquare(map.get("start"), "start");
+        if (map.get("end") != null) {
+            int[] end = readSquare(map.get("end"), "end");
+            settings.endY = end[0];
+            settings.endX = end[1];
+        }
+        if (map.get("cycle") != null)
+            settings.cycle = (Boolean) readField(map, "cycle", Boolean.class);
+        if (map.get("count") != null)
+            settings.count = (Boolean) readField(map, "count", Boolean.class);
+        if (map.get("timeout") != null)
+            settings.limit = ((Number) readField(map, "timeout",
+                Number.class)).longValue();
+        return new Puzzle("request", blocked, start[0], start[1]);
+    }
+    
+    /**
+     * readField()
+     *
+     * Description:
+     *   Returns a field of the JSON object, which has to be of the given
+     *   type.
+    **/
+    protected static Object readField(Map<?, ?> map, String name,
+            Class<?> type) throws IOException {
+        Object value = map.get(name);
+        if (!type.isInstance(value))
+            throw new IOException("Invalid value of '" + name + "'");
+        return value;
+    }
+    
+    /**
+     * readRow()
+     *
+     * Description:
+     *   Reads a row of the JSON grid: an array of 0/1 or false/true, or a
+     *   string of '0'/'1' or '.'/'#' (white space is ignored).
+    **/
+    protected static boolean[] readRow(Object row) throws IOException {
+        if (row instanceof String) {
+            String text = ((String) row).replaceAll("\\s", "");
+            boolean[] blocked = new boolean[text.length()];
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                if (c != '0' && c != '1' && c != '.' && c != '#')
+                    throw new IOException("Invalid square '" + c + "'");
+                blocked[j] = c == '1' || c == '#';
+            }
+            return blocked;
+        }
+        if (!(row instanceof List))
+            throw new IOException("Invalid row in 'grid'");
+        
+        List<?> squares = (List<?>) row;
+        boolean[] blocked = new boolean[squares.size()];
+        for (int j = 0; j < blocked.length; j++) {
+            Object square = squares.get(j);
+            if (square instanceof Boolean)
+                blocked[j] = (Boolean) square;
+            else if (square instanceof Number)
+                blocked[j] = ((Number) square).intValue() != 0;
+            else
+                throw new IOException("Invalid square in 'grid'");
+        }
+        return blocked;
+    }
+    
+    /**
+     * readSquare()
+     *
+     * Description:
+     *   Reads a [y, x] pair of coordinates.
+    **/
+    protected static int[] readSquare(Object value, String name)
+            throws IOException {
+        if (!(value instanceof List) || ((List<?>) value).size() != 2 ||
+                !(((List<?>) value).get(0) instanceof Number) ||
+                !(((List<?>) value).get(1) instanceof Number))
+            throw new IOException("'" + name + "' has to be [y, x]");
+        List<?> pair = (List<?>) value;
+        return new int[] {
+            ((Number) pair.get(0)).intValue(),
+            ((Number) pair.get(1)).intValue()
+        };
+    }
+    
+    /**
+     * check()
+     *
+     * Description:
+     *   Makes the checks the engines make when they are built, so a puzzle
+     *   they would reject is answered with the reason instead of only
+     *   printing it on the server's standard error. Boards of more than
+     *   MAX_CELLS squares are rejected as well.
+    **/
+    protected static void check(Puzzle puzzle, Options settings)
+            throws IOException {
+        boolean[][] grid = puzzle.grid;
+        for (boolean[] row : grid) {
+            if (row.length == 0)
+                throw new IOException("Invalid Board Dimensions: Board" +
+                    " requires positive dimension");
+            if (row.length != grid[0].length)
+                throw new IOException("Invalid Board Dimensions: Board" +
+                    " must be rectangular");
+        }
+        if ((long) grid.length * grid[0].length > MAX_CELLS)
+            throw new IOException("Invalid Board Dimensions: Board" +
+                " may have at most " + MAX_CELLS + " squares");
+        
+        if (!isOnBoard(grid, puzzle.y, puzzle.x))
+            throw new IOException("Out-Of-Bounds Starting Point");
+        if (grid[puzzle.y][puzzle.x])
+            throw new IOException("Invalid Starting Point");
+        int endY = (settings.endY >= 0)? settings.endY : puzzle.endY;
+        int endX = (settings.endY >= 0)? settings.endX : puzzle.endX;
+        if (endY < 0)
+            return;
+        if (!isOnBoard(grid, endY, endX))
+            throw new IOException("Out-Of-Bounds End Point");
+        if (grid[endY][endX])
+            throw new IOException("Invalid End Point");
+    }
+    
+    /**
+     * isOnBoard()
+     *
+     * Description:
+     *   Determines whether (x, y) is a square of the grid.
+    **/
+    protected static boolean isOnBoard(boolean[][] grid, int y, int x) {
+        return y >= 0 && x >= 0 && y < grid.length && x < grid[0].length;
+    }
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Solves (or counts the paths of) a puzzle on the calling thread and
+     *   returns the answer.
+    **/
+    protected static String solve(Puzzle puzzle, Options settings) {
+        long startTime = System.currentTimeMillis();
+        Solver board = settings.newSolver(puzzle, 1);
+        StringBuilder answer = new StringBuilder("{\"status\": ");
+        
+        if (settings.count) {
+            long count = (board.isSolvable())? board.countPaths() : 0;
+            answer.append(Json.quote((board.isTimedOut())?
+                "TIMEOUT" : "COUNTED"));
+            answer.append(", \"count\": ").append(count);
+        } else if (board.isSolvable() && board.solve()) {
+            String path = board.pathToString().trim().replace("\n", ", ");
+            answer.append("\"FOUND\", \"path\": [").append(path).append(']');
+        } else {
+            answer.append(Json.quote((board.isTimedOut())?
+                "TIMEOUT" : "NONE"));
+            Precheck precheck = board.getPrecheck();
+            if (precheck != null && precheck.getFailedTest() != null)
+                answer.append(", \"check\": ")
+                    .append(Json.quote(precheck.getFailedTest().toString()))
+                    .append(", \"reason\": ")
+                    .append(Json.quote(precheck.getCertificate()));
+        }
+        
+        answer.append(", \"ms\": ")
+            .append(System.currentTimeMillis() - startTime);
+        return answer.append('}').toString();
+    }
+    
+    /**
+     * error()
+     *
+     * Description:
+     *   Returns the answer to a request that could not be solved.
+    **/
+    protected static String error(String message) {
+        return "{\"status\": \"ERROR\", \"message\": " + Json.quote(message) +
+            "}";
+    }
+}
\ No newline at end of file
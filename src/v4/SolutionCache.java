@@ -0,0 +1,270 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SolutionCache class that remembers the answers to the last puzzles solved
+ * so that a puzzle seen before, or a rotation or reflection of it, is
+ * answered without searching. Each puzzle is turned by the symmetry of the
+ * square (rotations and reflections) that gives the smallest encoding of its
+ * blocks, start, end and mode, and that canonical board is the key. Paths
+ * are stored on the canonical board and turned back for each puzzle. The
+ * least recently used answer is dropped once the cache is full. The cache
+ * is safe to use from several threads.
+**/
+class SolutionCache {
+    /* number of symmetries of the square */
+    protected static final int SYMMETRIES = 8;
+    /* most answers kept */
+    protected final int capacity;
+    /* answers by key, in least to most recently used order */
+    protected final Map<Key, Result> results;
+    /* number of lookups answered and not answered */
+    protected final AtomicLong hits, misses;
+    
+    /**
+     * Key class holding the canonical encoding of a puzzle and the symmetry
+     * that turns the puzzle into its canonical board.
+    **/
+    protected static class Key {
+        /* canonical encoding: dimensions, start, end, mode and blocks */
+        protected final long[] words;
+        /* hash of the encoding */
+        protected final int hash;
+        /* symmetry applied and dimensions of the puzzle */
+        protected final int symmetry, height, width;
+        
+        protected Key(long[] words, int symmetry, int height, int width) {
+            this.words = words;
+            this.hash = Arrays.hashCode(words);
+            this.symmetry = symmetry;
+            this.height = height;
+            this.width = width;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key &&
+                Arrays.equals(words, ((Key) other).words);
+        }
+        
+        /**
+         * toCanonical(), fromCanonical()
+         *
+         * Description:
+         *   Turn a path of linear indices on the puzzle into the same path
+         *   on the canonical board, and back.
+        **/
+        public int[] toCanonical(int[] path) {
+            int[] cells = new int[path.length];
+            for (int n = 0; n < path.length; n++)
+                cells[n] = transform(symmetry, height, width, path[n]);
+            return cells;
+        }
+        
+        public int[] fromCanonical(int[] path) {
+            int[] cells = new int[path.length];
+            for (int n = 0; n < path.length; n++)
+                cells[n] = inverse(symmetry, height, width, path[n]);
+            return cells;
+        }
+    }
+    
+    /**
+     * Result class holding a stored answer: the path on the canonical board
+     * (null if there is none) or the number of paths.
+    **/
+    protected static class Result {
+        protected final int[] path;
+        protected final long count;
+        
+        protected Result(int[] path, long count) {
+            this.path = path;
+            this.count = count;
+        }
+    }
+    
+    /**
+     * Constructor that creates a cache of at most 'capacity' answers.
+    **/
+    public SolutionCache(int capacity) {
+        this.capacity = capacity;
+        results = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> e) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+    
+    /**
+     * transform()
+     *
+     * Description:
+     *   Returns where square c of an h by w board goes under a symmetry:
+     *   bit 0 flips the rows, bit 1 flips the columns, and bit 2 then
+     *   swaps rows and columns (so the board becomes w by h).
+    **/
+    protected static int transform(int symmetry, int h, int w, int c) {
+        int i = c / w, j = c % w;
+        if ((symmetry & 1) != 0)
+            i = h - 1 - i;
+        if ((symmetry & 2) != 0)
+            j = w - 1 - j;
+        return ((symmetry & 4) != 0)? j * h + i : i * w + j;
+    }
+    
+    /**
+     * inverse()
+     *
+     * Description:
+     *   Undoes transform(): returns the square of the h by w board that the
+     *   symmetry moved to square c.
+    **/
+    protected static int inverse(int symmetry, int h, int w, int c) {
+        int i, j;
+        if ((symmetry & 4) != 0) {
+            j = c / h;
+            i = c % h;
+        } else {
+            i = c / w;
+            j = c % w;
+        }
+        if ((symmetry & 1) != 0)
+            i = h - 1 - i;
+        if ((symmetry & 2) != 0)
+            j = w - 1 - j;
+        return i * w + j;
+    }
+    
+    /**
+     * key()
+     *
+     * Description:
+     *   Builds the key of a puzzle: encodes the board under every symmetry
+     *   and keeps the smallest encoding.
+     *
+     * Inputs:
+     *   grid - blocked squares
+     *   y, x - start
+     *   endY, endX - required end (negative for none)
+     *   mode - what is asked of the puzzle (e.g. a path or a count, and
+     *          whether it has to be a cycle)
+     *
+     * Return Value:
+     *   Key - key of the puzzle
+    **/
+    public static Key key(boolean[][] grid, int y, int x, int endY, int endX,
+            int mode) {
+        int h = grid.length, w = grid[0].length, cells = h * w;
+        int start = y * w + x, end = (endY < 0)? -1 : endY * w + endX;
+        long[] best = null;
+        int bestSymmetry = 0;
+        
+        for (int s = 0; s < SYMMETRIES; s++) {
+            long[] words = new long[3 + (cells + 63) / 64];
+            boolean swap = (s & 4) != 0;
+            words[0] = ((long) (swap? w : h) << 32) | (swap? h : w);
+            words[1] = ((long) transform(s, h, w, start) << 32) |
+                ((end < 0)? 0xFFFFFFFFL : transform(s, h, w, end));
+            words[2] = mode;
+            for (int i = 0; i < h; i++)
+                for (int j = 0; j < w; j++)
+                    if (grid[i][j]) {
+                        int c = transform(s, h, w, i * w + j);
+                        words[3 + c / 64] |= 1L << (c % 64);
+                    }
+            
+            if (best == null || compare(words, best) < 0) {
+                best = words;
+                bestSymmetry = s;
+            }
+        }
+        return new Key(best, bestSymmetry, h, w);
+    }
+    
+    /**
+     * compare()
+     *
+     * Description:
+     *   Compares two encodings of the same length word by word.
+    **/
+    protected static int compare(long[] a, long[] b) {
+        for (int n = 0; n < a.length; n++)
+            if (a[n] != b[n])
+                return Long.compare(a[n], b[n]);
+        return 0;
+    }
+    
+    /**
+     * get()
+     *
+     * Description:
+     *   Returns the answer stored for a key (null if there is none).
+    **/
+    public Result get(Key key) {
+        Result result;
+        synchronized (results) {
+            result = results.get(key);
+        }
+        (result != null? hits : misses).incrementAndGet();
+        return result;
+    }
+    
+    /**
+     * putPath()
+     *
+     * Description:
+     *   Stores the path found for a key (null if there is none), given on
+     *   the puzzle of the key.
+    **/
+    public void putPath(Key key, int[] path) {
+        put(key, new Result((path == null)? null : key.toCanonical(path), 0));
+    }
+    
+    /**
+     * putCount()
+     *
+     * Description:
+     *   Stores the number of paths of a key.
+    **/
+    public void putCount(Key key, long count) {
+        put(key, new Result(null, count));
+    }
+    
+    protected void put(Key key, Result result) {
+        synchronized (results) {
+            results.put(key, result);
+        }
+    }
+    
+    /**
+     * toString() (from Object)
+     *
+     * Description:
+     *   Returns the number of answers kept, hits and misses.
+    **/
+    @Override
+    public String toString() {
+        int size;
+        synchronized (results) {
+            size = results.size();
+        }
+        return "Result Cache: " + size + " of " + capacity + " entries, " +
+            hits.get() + " hits, " + misses.get() + " misses";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Solver interface shared by the path puzzle engines so that the interfaces
+ * (TTY, etc.) can run any of them the same way
+**/
+interface Solver extends Callable<Boolean> {
+    /**
+     * isSolvable()
+     *
+     * Description:
+     *   Checks whether the current board is solvable before searching.
+    **/
+    public boolean isSolvable();
+    
+    /**
+     * call() (from Callable)
+     *
+     * Description:
+     *   Runs the search without throwing checked exceptions.
+    **/
+    @Override
+    public Boolean call();
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Runs the search on the calling thread only, for callers that already
+     *   run many boards in parallel.
+    **/
+    public boolean solve();
+    
+    /**
+     * countPaths()
+     *
+     * Description:
+     *   Counts every path from the starting location instead of stopping at
+     *   the first one. When the search is stopped (or times out) the count
+     *   is only a lower bound.
+    **/
+    public long countPaths();
+    
+    /**
+     * setPathListener()
+     *
+     * Description:
+     *   Sets the listener told about every path found by countPaths() (null
+     *   for none).
+    **/
+    public void setPathListener(PathListener listener);
+    
+    /**
+     * getState()
+     *
+     * Description:
+     *   Returns the current state of the algorithm.
+    **/
+    public State getState();
+    
+    /**
+     * isTimedOut()
+     *
+     * Description:
+     *   Returns whether the last search gave up because of its time limit.
+    **/
+    public boolean isTimedOut();
+    
+    /**
+     * getStatistics()
+     *
+     * Description:
+     *   Returns the counters of the last search (null if the engine does not
+     *   keep any).
+    **/
+    public Statistics getStatistics();
+    
+    /**
+     * getPrecheck()
+     *
+     * Description:
+     *   Returns the structural checks made by the last isSolvable() call,
+     *   which tell which check failed and why (null if none were made).
+    **/
+    public Precheck getPrecheck();
+    
+    /**
+     * getPathCells()
+     *
+     * Description:
+     *   Returns the squares of the path found, in order, as linear indices
+     *   (y * width + x), or an empty array if there is none.
+    **/
+    public int[] getPathCells();
+    
+    /**
+     * pathToString()
+     *
+     * Description:
+     *   Returns a string to represent the current path.
+    **/
+    public String pathToString();
+}
\ No newline at end of file
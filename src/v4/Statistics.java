@@ -0,0 +1,183 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistics class that collects the counters of every thread working on a
+ * search. Each thread counts into its own SearchStats, and the totals are
+ * only added up when they are read.
+**/
+class Statistics implements StatisticsMBean {
+    /* name the current search is registered under with JMX */
+    protected static final String MBEAN_NAME = "v4:type=Statistics";
+    /* counters of every thread that took part in the search */
+    protected final List<SearchStats> stripes;
+    /* counters of the calling thread */
+    protected final ThreadLocal<SearchStats> local;
+    
+    /**
+     * Constructor that creates an empty set of counters.
+    **/
+    public Statistics() {
+        stripes = new CopyOnWriteArrayList<SearchStats>();
+        local = ThreadLocal.withInitial(() -> {
+            SearchStats stats =
+                new SearchStats(Thread.currentThread().getName());
+            stripes.add(stats);
+            return stats;
+        });
+    }
+    
+    /**
+     * stripe()
+     *
+     * Description:
+     *   Returns the counters of the calling thread, creating them on its
+     *   first call.
+    **/
+    public SearchStats stripe() {
+        return local.get();
+    }
+    
+    /**
+     * stripe()
+     *
+     * Description:
+     *   Returns new counters under the given name, for searches made
+     *   somewhere else (e.g. by another machine) and added up here.
+    **/
+    public SearchStats stripe(String name) {
+        SearchStats stats = new SearchStats(name);
+        stripes.add(stats);
+        return stats;
+    }
+    
+    /**
+     * register()
+     *
+     * Description:
+     *   Registers these counters with the platform MBean server, replacing
+     *   the ones of the previous search.
+    **/
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            synchronized (Statistics.class) {
+                if (server.isRegistered(name))
+                    server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("JMX Registration Error");
+        }
+    }
+    
+    @Override
+    public long getNodes() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.nodes;
+        return sum;
+    }
+    
+    @Override
+    public int getMaxDepth() {
+        int max = 0;
+        for (SearchStats stats : stripes)
+            max = Math.max(max, stats.maxDepth);
+        return max;
+    }
+    
+    @Override
+    public long getBacktracks() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.backtracks;
+        return sum;
+    }
+    
+    @Override
+    public long getBlobPrunes() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.blobPrunes;
+        return sum;
+    }
+    
+    @Override
+    public long getSinglePrunes() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.singlePrunes;
+        return sum;
+    }
+    
+    @Override
+    public long getParityPrunes() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.parityPrunes;
+        return sum;
+    }
+    
+    @Override
+    public long getSymmetryPrunes() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.symmetryPrunes;
+        return sum;
+    }
+    
+    @Override
+    public long getDeadEndHits() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.deadEndHits;
+        return sum;
+    }
+    
+    @Override
+    public int getWorkers() {
+        return stripes.size();
+    }
+    
+    @Override
+    public long getBusyMillis() {
+        long sum = 0;
+        for (SearchStats stats : stripes)
+            sum += stats.busyNanos;
+        return sum / 1000000;
+    }
+    
+    /**
+     * toString()
+     *
+     * Description:
+     *   Returns a summary of the counters, with the busy time of every
+     *   thread.
+    **/
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Nodes: " + getNodes() + " (max depth " +
+            getMaxDepth() + ")\n");
+        builder.append("Backtracks: " + getBacktracks() + "\n");
+        builder.append("Prunes: " + getBlobPrunes() + " blob split, " +
+            getSinglePrunes() + " dead end cell, " + getParityPrunes() +
+            " parity, " + getSymmetryPrunes() + " symmetric, " +
+            getDeadEndHits() + " cached dead end\n");
+        for (SearchStats stats : stripes)
+            builder.append("Worker " + stats.name + ": " + stats.nodes +
+                " nodes, " + stats.busyNanos / 1000000 + " ms busy\n");
+        return builder.toString();
+    }
+}
\ No newline at end of file
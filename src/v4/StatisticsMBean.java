@@ -0,0 +1,22 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * StatisticsMBean interface that exposes the counters of the current search
+ * through JMX (e.g. in jconsole under 'v4:type=Statistics')
+**/
+public interface StatisticsMBean {
+    public long getNodes();
+    public int getMaxDepth();
+    public long getBacktracks();
+    public long getBlobPrunes();
+    public long getSinglePrunes();
+    public long getParityPrunes();
+    public long getSymmetryPrunes();
+    public long getDeadEndHits();
+    public int getWorkers();
+    public long getBusyMillis();
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+/**
+ * StopFlag class shared by a board and all of its workers so that a 'stop'
+ * event, a found solution or a passed deadline is seen by every search at
+ * once
+**/
+class StopFlag {
+    /* set once every search sharing this flag should stop */
+    protected volatile boolean stopped;
+    /* set when the flag was stopped because the deadline passed */
+    protected volatile boolean expired;
+    /* System.nanoTime() value after which the search stops (0 for none) */
+    protected final long deadline;
+    
+    /**
+     * Constructor that creates a flag with no deadline.
+    **/
+    public StopFlag() {
+        this(0);
+    }
+    
+    /**
+     * Constructor that creates a flag which stops by itself once the given
+     * number of milliseconds has passed (0 for no deadline).
+    **/
+    public StopFlag(long millis) {
+        deadline = (millis > 0)? System.nanoTime() + millis * 1000000 : 0;
+    }
+    
+    /**
+     * stop()
+     *
+     * Description:
+     *   Tells every search sharing this flag to stop.
+    **/
+    public void stop() {
+        stopped = true;
+    }
+    
+    /**
+     * isStopped()
+     *
+     * Description:
+     *   Returns whether the searches should stop. Only reads the flag, so it
+     *   is cheap enough to call at every node.
+    **/
+    public boolean isStopped() {
+        return stopped;
+    }
+    
+    /**
+     * checkDeadline()
+     *
+     * Description:
+     *   Stops the flag if the deadline has passed.
+     *
+     * Return Value:
+     *   boolean - true if the searches should stop
+     *           - false otherwise
+    **/
+    public boolean checkDeadline() {
+        if (!stopped && deadline != 0 && System.nanoTime() - deadline > 0) {
+            expired = true;
+            stopped = true;
+        }
+        return stopped;
+    }
+    
+    /**
+     * isExpired()
+     *
+     * Description:
+     *   Returns whether the flag was stopped by its deadline.
+    **/
+    public boolean isExpired() {
+        return expired;
+    }
+}
\ No newline at end of file
@@ -5,15 +5,51 @@
 package v4;
 
 public class TTY implements Runnable {
-    /* instance of GameBoard class that contains the grid and algorithm */
-    protected GameBoard board;
+    /* instance of the engine that contains the board and algorithm */
+    protected Solver board;
+    /* whether to print the search counters after the result */
+    protected boolean showStats;
+    /* whether to count every path instead of finding one, and whether to
+     * print each of them while counting
+     */
+    protected boolean counting, enumerating;
     
     /**
      * Constructor that initializes a TTY version of the interface on a 2D
      * boolean array representing the board and starting coordinates x and y.
     **/
     public TTY(boolean[][] start, int y, int x, int workerCount) {
-        board = new GameBoard(start, y, x, workerCount);
+        this(new GameBoard(start, y, x, workerCount));
+    }
+    
+    /**
+     * Constructor that initializes a TTY version of the interface on an
+     * already built engine.
+    **/
+    public TTY(Solver solver) {
+        board = solver;
+    }
+    
+    /**
+     * setShowStats()
+     *
+     * Description:
+     *   Sets whether the search counters are printed after the result.
+    **/
+    public void setShowStats(boolean value) {
+        showStats = value;
+    }
+    
+    /**
+     * setCounting()
+     *
+     * Description:
+     *   Sets whether every path is counted (and printed if 'enumerate') in
+     *   place of finding a single one.
+    **/
+    public void setCounting(boolean count, boolean enumerate) {
+        counting = count || enumerate;
+        enumerating = enumerate;
     }
     
     /**
@@ -24,6 +60,21 @@ public class TTY implements Runnable {
     **/
     @Override
     public void run() {
+        if (counting)
+            count();
+        else
+            solve();
+        if (showStats && board.getStatistics() != null)
+            System.out.print("\n" + board.getStatistics());
+    }
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Runs the algorithm and outputs its result.
+    **/
+    protected void solve() {
         long startTime = 0, endTime = 0;
         if (board.isSolvable()) {
             System.out.println("Calculating...");
@@ -31,14 +82,63 @@ public class TTY implements Runnable {
             board.call();
             endTime = System.currentTimeMillis();
             System.out.println("Duration: " + (endTime - startTime) + " ms");
-            if (board.state == State.FINISHED) {
+            if (board.getState() == State.FINISHED) {
                 System.out.print(
                     "Solution Found.\n\n" + board.pathToString()
                 );
                 return;
+            } else if (board.isTimedOut()) {
+                System.out.println("Time Limit Reached.");
+                return;
             }
         }
         
         System.out.println("No Solution Exists.");
+        printPrecheck();
+    }
+    
+    /**
+     * printPrecheck()
+     *
+     * Description:
+     *   Outputs which structural check failed and why, if one did.
+    **/
+    protected void printPrecheck() {
+        Precheck precheck = board.getPrecheck();
+        if (precheck != null && precheck.getFailedTest() != null)
+            System.out.println(precheck);
+    }
+    
+    /**
+     * count()
+     *
+     * Description:
+     *   Counts every path and outputs the total, printing each path as it is
+     *   found when enumerating.
+    **/
+    protected void count() {
+        long count = 0, startTime, endTime;
+        if (enumerating)
+            board.setPathListener(solver -> {
+                String text = solver.pathToString();
+                synchronized (System.out) {
+                    System.out.println(text);
+                }
+            });
+        
+        System.out.println("Counting...");
+        startTime = System.currentTimeMillis();
+        if (board.isSolvable())
+            count = board.countPaths();
+        else
+            printPrecheck();
+        endTime = System.currentTimeMillis();
+        System.out.println("Duration: " + (endTime - startTime) + " ms");
+        if (board.isTimedOut())
+            System.out.println("Time Limit Reached.");
+        System.out.println(
+            ((board.isTimedOut() || count == Long.MAX_VALUE)?
+                "Paths Found (at least): " : "Paths Found: ") + count
+        );
     }
 }
\ No newline at end of file
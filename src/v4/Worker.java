@@ -0,0 +1,255 @@
+/*
+ * Author: Gabriel Morales
+ * Course: CSC 258 - Parallel & Distributed Systems (SPRING 2017)
+ */
+package v4;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker class that searches the subproblems handed out by a Coordinator,
+ * 'numThreads' at a time, until the coordinator ends the search. Each
+ * subproblem is searched by a WorkerBoard with a stop flag of its own, so a
+ * subproblem answered by another worker is cancelled without stopping the
+ * rest, and all of them share one dead end table of 'cache' bytes. The
+ * puzzle and the settings the order of the search depends on come from the
+ * coordinator; the time limit is the coordinator's.
+**/
+public class Worker implements Runnable {
+    /* attempts made to connect, CONNECT_WAIT_MS apart, before giving up */
+    protected static final int CONNECT_TRIES = 30;
+    protected static final long CONNECT_WAIT_MS = 1000;
+    /* address of the coordinator */
+    protected final String host;
+    protected final int port;
+    /* settings of the worker (threads and cache) */
+    protected final Options options;
+    /* board every subproblem starts from */
+    protected GameBoard base;
+    /* subproblems being searched, by id */
+    protected final Map<Integer, GameBoard> running;
+    /* stream the answers are written to */
+    protected DataOutputStream out;
+    /* subproblems answered, and nodes searched for them */
+    protected final AtomicInteger answered = new AtomicInteger();
+    protected final AtomicLong nodes = new AtomicLong();
+    
+    /**
+     * Constructor that sets up a worker for the coordinator at the given
+     * address. Nothing is sent until run().
+    **/
+    public Worker(String host, int port, Options options) {
+        this.host = host;
+        this.port = port;
+        this.options = options;
+        running = new ConcurrentHashMap<Integer, GameBoard>();
+    }
+    
+    /**
+     * run() (from Runnable)
+     *
+     * Description:
+     *   Connects to the coordinator, searches the subproblems it sends on a
+     *   pool of 'numThreads' threads until it sends STOP (or disconnects),
+     *   and prints a summary on standard error.
+    **/
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        Socket socket = connect();
+        if (socket == null)
+            return;
+        
+        ExecutorService pool = Executors.newFixedThreadPool(options.numThreads);
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+            hello(in);
+            
+            int cells = base.getWidth() * base.getHeight();
+            for (int type; (type = in.readByte()) != Coordinator.STOP; ) {
+                int id = in.readInt();
+                if (type == Coordinator.TASK) {
+                    GameBoard board = subproblem(Coordinator.readPath(in,
+                        cells));
+                    running.put(id, board);
+                    pool.execute(() -> solve(id, board));
+                } else if (type == Coordinator.CANCEL) {
+                    GameBoard board = running.get(id);
+                    if (board != null)
+                        board.stop();
+                } else {
+                    throw new IOException("Unexpected message " + type);
+                }
+            }
+        } catch (EOFException e) {
+            System.err.println("Coordinator disconnected");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Connection Error: " + e.getMessage());
+        } finally {
+            for (GameBoard board : running.values())
+                board.stop();
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {}
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        }
+        
+        System.err.println(
+            "Answered " + answered + " subproblems (" + nodes + " nodes) in " +
+            (System.currentTimeMillis() - startTime) + " ms"
+        );
+    }
+    
+    /**
+     * connect()
+     *
+     * Description:
+     *   Connects to the coordinator, trying again for a while so workers
+     *   can be started before it.
+     *
+     * Return Value:
+     *   Socket - connection (null if it could not be made)
+    **/
+    protected Socket connect() {
+        for (int tries = 1; ; tries++) {
+            try {
+                return new Socket(host, port);
+            } catch (IOException e) {
+                if (tries == CONNECT_TRIES) {
+                    System.err.println("Connection Error: " + e.getMessage());
+                    return null;
+                }
+            }
+            try {
+                Thread.sleep(CONNECT_WAIT_MS);
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * hello()
+     *
+     * Description:
+     *   Reads the puzzle and settings sent by the coordinator, sets up the
+     *   board the subproblems start from, and answers with the number of
+     *   threads.
+    **/
+    protected void hello(DataInputStream in) throws IOException {
+        String name = host + ":" + port;
+        Coordinator.readMagic(in, name);
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException(name + ": Invalid puzzle length");
+        byte[] record = new byte[length];
+        in.readFully(record);
+        Puzzle puzzle = BinaryPuzzle.decode(name, ByteBuffer.wrap(record));
+        
+        Options settings = options.copy();
+        settings.heuristic = Heuristic.valueOf(in.readUTF());
+        settings.cycle = in.readBoolean();
+        settings.bidirectional = in.readBoolean();
+        settings.endY = settings.endX = -1;
+        settings.limit = 0;
+        settings.stats = settings.forkJoin = false;
+        settings.checkpoint = null;
+        base = new GameBoard(puzzle.grid, puzzle.y, puzzle.x,
+            options.numThreads);
+        settings.configure(base, puzzle);
+        base.prepare();
+        System.err.println("Searching " + puzzle.grid.length + "x" +
+            puzzle.grid[0].length + " board for " + name + " with " +
+            options.numThreads + " threads");
+        
+        synchronized (out) {
+            out.write(Coordinator.MAGIC);
+            out.writeByte(Coordinator.VERSION);
+            out.writeInt(options.numThreads);
+            out.flush();
+        }
+    }
+    
+    /**
+     * subproblem()
+     *
+     * Description:
+     *   Returns a board that searches the paths starting with the given one,
+     *   checking that it extends the path of the base board one free square
+     *   at a time.
+    **/
+    protected GameBoard subproblem(int[] prefix) throws IOException {
+        GameBoard board = new GameBoard.WorkerBoard(base);
+        int width = base.getWidth();
+        if (prefix.length < base.pathSize)
+            throw new IOException("Invalid subproblem");
+        for (int n = 0; n < prefix.length; n++) {
+            int c = prefix[n];
+            if (n < base.pathSize) {
+                if (c != base.path[n])
+                    throw new IOException("Invalid subproblem");
+                continue;
+            }
+            int last = prefix[n-1];
+            if (c < 0 || !board.isFree(c / width, c % width) ||
+                    Math.abs(c / width - last / width) +
+                    Math.abs(c % width - last % width) != 1)
+                throw new IOException("Invalid subproblem");
+            board.locate(c);
+            board.forward();
+        }
+        board.stop = new StopFlag();
+        board.statistics = new Statistics();
+        return board;
+    }
+    
+    /**
+     * solve()
+     *
+     * Description:
+     *   Searches a subproblem on the calling thread and sends the answer:
+     *   the path found, none, or stopped before the end.
+    **/
+    protected void solve(int id, GameBoard board) {
+        boolean found = board.call();
+        int status = (found)? Coordinator.FOUND :
+            (board.stop.isStopped())? Coordinator.STOPPED : Coordinator.NONE;
+        running.remove(id);
+        answered.incrementAndGet();
+        nodes.addAndGet(board.stats.nodes);
+        try {
+            synchronized (out) {
+                out.writeByte(Coordinator.RESULT);
+                out.writeInt(id);
+                out.writeByte(status);
+                if (found)
+                    Coordinator.writePath(out, board.getPathCells());
+                board.stats.writeTo(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the reading thread notices the connection is gone
+        }
+    }
+}
\ No newline at end of file